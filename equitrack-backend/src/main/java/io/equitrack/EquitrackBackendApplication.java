@@ -11,9 +11,9 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  * This class boots up the entire Spring Boot application and enables critical features
  * It's the starting point that brings all your controllers, services, and configurations to life
  */
-@EnableScheduling  // Enables Spring's scheduled task execution - allows @Scheduled methods to run automatically
+@EnableScheduling  // Enables Spring's scheduled task execution - allows @Scheduled methods to run automatically (pool in AsyncConfig)
 @SpringBootApplication  // Core Spring Boot annotation that enables autoconfiguration, component scanning, and more
-@EnableAsync  // Enables asynchronous method execution - allows @Async methods to run in background threads
+@EnableAsync  // Enables asynchronous method execution - allows @Async methods to run in background threads (pool in AsyncConfig)
 public class EquitrackBackendApplication {
 
 	/**
@@ -0,0 +1,135 @@
+package io.equitrack.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * THREAD POOLS FOR BACKGROUND WORK
+ *
+ * - taskExecutor:       @Async methods - bounded pool + bounded queue; when both are full the
+ *                       caller runs the task itself, which slows producers instead of piling up threads
+ * - taskScheduler:      @Scheduled methods - several threads so the daily jobs and the outbox
+ *                       metrics refresh never wait on each other
+ * - emailOutboxExecutor: long-running outbox worker loops (one thread per worker)
+ * - batchExecutor:      partitions of user-wide batch jobs (BatchJobRunner)
+ * - walletDepositScheduler: group commits of coalesced wallet deposits (WalletDepositCoalescer)
+ *
+ * Every pool drains in-flight work on shutdown (up to await-termination-seconds).
+ * Spring Boot Actuator binds these beans to executor.active / executor.queued / executor.completed
+ * metrics, tagged with the bean name.
+ */
+@Configuration
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    @Value("${equitrack.async.core-size:4}")
+    private int asyncCoreSize;
+
+    @Value("${equitrack.async.max-size:16}")
+    private int asyncMaxSize;
+
+    @Value("${equitrack.async.queue-capacity:500}")
+    private int asyncQueueCapacity;
+
+    @Value("${equitrack.scheduler.pool-size:4}")
+    private int schedulerPoolSize;
+
+    @Value("${equitrack.email.outbox.workers:2}")
+    private int outboxWorkers;
+
+    @Value("${equitrack.batch.threads:4}")
+    private int batchThreads;
+
+    @Value("${equitrack.wallet.deposit-coalescing.threads:4}")
+    private int depositCoalescingThreads;
+
+    @Value("${equitrack.executor.await-termination-seconds:30}")
+    private int awaitTerminationSeconds;
+
+    @Bean(name = "taskExecutor")
+    public ThreadPoolTaskExecutor taskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("async-");
+        executor.setCorePoolSize(asyncCoreSize);
+        executor.setMaxPoolSize(asyncMaxSize);
+        executor.setQueueCapacity(asyncQueueCapacity);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(awaitTerminationSeconds);
+        return executor;
+    }
+
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("scheduled-");
+        scheduler.setPoolSize(schedulerPoolSize);
+        // A scheduled run that can't be accepted (only during shutdown) is dropped and logged
+        scheduler.setRejectedExecutionHandler((task, pool) ->
+                log.warn("⚠️ Scheduled task rejected - scheduler is shutting down"));
+        scheduler.setErrorHandler(t -> log.error("❌ Scheduled task failed: {}", t.getMessage(), t));
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(awaitTerminationSeconds);
+        return scheduler;
+    }
+
+    @Bean(name = "emailOutboxExecutor")
+    public ThreadPoolTaskExecutor emailOutboxExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("email-outbox-");
+        // workers=0 keeps this node from draining the outbox; the pool still needs one thread
+        executor.setCorePoolSize(Math.max(1, outboxWorkers));
+        executor.setMaxPoolSize(Math.max(1, outboxWorkers));
+        // Exactly one long-running loop per thread - nothing should ever queue
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(awaitTerminationSeconds);
+        return executor;
+    }
+
+    @Bean(name = "batchExecutor")
+    public ThreadPoolTaskExecutor batchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("batch-");
+        executor.setCorePoolSize(batchThreads);
+        executor.setMaxPoolSize(batchThreads);
+        // Partitions beyond the thread count wait their turn
+        executor.setQueueCapacity(1000);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(awaitTerminationSeconds);
+        return executor;
+    }
+
+    @Bean(name = "walletDepositScheduler")
+    public ThreadPoolTaskScheduler walletDepositScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("wallet-deposit-");
+        scheduler.setPoolSize(depositCoalescingThreads);
+        // Deposits already waiting for their group commit still run on shutdown
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(awaitTerminationSeconds);
+        return scheduler;
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return taskExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) ->
+                log.error("❌ Async method {} failed: {}", method.getName(), ex.getMessage(), ex);
+    }
+}
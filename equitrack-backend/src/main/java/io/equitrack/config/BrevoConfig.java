@@ -0,0 +1,69 @@
+package io.equitrack.config;
+
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.OkHttpClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import sendinblue.ApiClient;
+import sendinblue.auth.ApiKeyAuth;
+import sibApi.TransactionalEmailsApi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BREVO (SENDINBLUE) API CLIENT
+ *
+ * One client is configured at startup and shared by every send, instead of mutating
+ * Configuration.getDefaultApiClient() per email. The underlying OkHttp client keeps a pool of
+ * keep-alive connections, so bursts of sends reuse TLS connections.
+ * brevo.api.base-url can point at a local stub server in tests.
+ */
+@Configuration
+@Slf4j
+public class BrevoConfig {
+
+    @Value("${brevo.api.key}")
+    private String brevoApiKey;
+
+    @Value("${brevo.api.base-url:https://api.brevo.com/v3}")
+    private String baseUrl;
+
+    @Value("${brevo.http.max-idle-connections:10}")
+    private int maxIdleConnections;
+
+    @Value("${brevo.http.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${brevo.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${brevo.http.read-timeout-ms:30000}")
+    private int readTimeoutMs;
+
+    @Bean
+    public ApiClient brevoApiClient() {
+        OkHttpClient httpClient = new OkHttpClient();
+        httpClient.setConnectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS));
+
+        ApiClient apiClient = new ApiClient();
+        apiClient.setHttpClient(httpClient);
+        apiClient.setBasePath(baseUrl);
+        apiClient.setConnectTimeout(connectTimeoutMs);
+        apiClient.setReadTimeout(readTimeoutMs);
+        apiClient.setWriteTimeout(readTimeoutMs);
+
+        ApiKeyAuth apiKey = (ApiKeyAuth) apiClient.getAuthentication("api-key");
+        apiKey.setApiKey(brevoApiKey);
+
+        log.info("✅ Brevo client configured for {}", baseUrl);
+        return apiClient;
+    }
+
+    // Stateless wrapper around the shared client - safe to reuse across threads
+    @Bean
+    public TransactionalEmailsApi transactionalEmailsApi(ApiClient brevoApiClient) {
+        return new TransactionalEmailsApi(brevoApiClient);
+    }
+}
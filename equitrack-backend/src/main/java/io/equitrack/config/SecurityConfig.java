@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -47,6 +48,8 @@ public class SecurityConfig {
                             .requestMatchers("/wallets/**").authenticated()
                             // Budget endpoints - require authentication
                             .requestMatchers("/budgets/**").authenticated()
+                            // Forcing an exchange rate reload - admins only (equitrack.admin.emails)
+                            .requestMatchers(HttpMethod.POST, "/currency/rates/refresh").hasRole("ADMIN")
                             // All other endpoints require authentication
                             .anyRequest().authenticated();
                 })
@@ -67,14 +70,14 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOriginPatterns(List.of("*"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Accept"));
-        configuration.setExposedHeaders(List.of("Content-Disposition"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "Accept", "Idempotency-Key"));
+        configuration.setExposedHeaders(List.of("Content-Disposition", "Retry-After", "Idempotent-Replayed"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
 
-        log.info("✅ CORS configured with exposed headers: Content-Disposition");
+        log.info("✅ CORS configured with exposed headers: Content-Disposition, Retry-After, Idempotent-Replayed");
         return source;
     }
 
@@ -1,5 +1,6 @@
 package io.equitrack.controller;
 
+import io.equitrack.dto.BudgetStatusDTO;
 import io.equitrack.entity.BudgetEntity;
 import io.equitrack.service.BudgetService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -47,6 +48,17 @@ public class BudgetController {
         }
     }
 
+    // Get spent / remaining / percentage of every budget in its current period
+    @GetMapping("/profile/{profileId}/status")
+    public ResponseEntity<?> getBudgetStatus(@PathVariable Long profileId) {
+        try {
+            List<BudgetStatusDTO> statuses = budgetService.getBudgetStatus(profileId);
+            return ResponseEntity.ok(statuses);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     // Get budgets by period
     @GetMapping("/profile/{profileId}/period/{period}")
     public ResponseEntity<?> getBudgetsByPeriod(
@@ -0,0 +1,38 @@
+package io.equitrack.controller;
+
+import io.equitrack.service.CurrencyService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/currency") // Base path: maps to /api/v1.0/currency
+@CrossOrigin(origins = "*")
+public class CurrencyController {
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    // Exchange rates in use on this node (units of the reference currency per unit)
+    @GetMapping("/rates")
+    public ResponseEntity<?> getRates() {
+        return ResponseEntity.ok(Map.of(
+                "reference", currencyService.getReferenceCurrency(),
+                "rates", currencyService.getRates()));
+    }
+
+    // Reload the rates from the rates file / tbl_exchange_rates without a restart (this node only;
+    // other nodes pick the change up on their next scheduled refresh). Admins only - see SecurityConfig
+    @PostMapping("/rates/refresh")
+    public ResponseEntity<?> refreshRates() {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "reference", currencyService.getReferenceCurrency(),
+                    "rates", currencyService.refresh()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package io.equitrack.controller;
 
 import io.equitrack.service.ExcelService;
+import io.equitrack.service.ExportThrottleService.ExportBusyException;
 import io.equitrack.service.ProfileService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -46,6 +48,11 @@ public class ExcelController {
         } catch (SecurityException se) {
             log.error("❌ Unauthorized: ", se);
             return ResponseEntity.status(401).build();
+        } catch (ExportBusyException be) {
+            log.warn("🚦 Export busy, asking client to retry in {}s", be.getRetryAfterSeconds());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(be.getRetryAfterSeconds()))
+                    .build();
         } catch (Exception e) {
             log.error("❌ Error downloading excel: ", e);
             return ResponseEntity.internalServerError().build();
@@ -75,6 +82,14 @@ public class ExcelController {
             response.put("success", false);
             response.put("message", "Unauthorized");
             return ResponseEntity.status(401).body(response);
+        } catch (ExportBusyException be) {
+            log.warn("🚦 Export busy, asking client to retry in {}s", be.getRetryAfterSeconds());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", be.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(be.getRetryAfterSeconds()))
+                    .body(response);
         } catch (Exception e) {
             log.error("❌ Error emailing excel: ", e);
 
@@ -109,6 +124,11 @@ public class ExcelController {
         } catch (SecurityException se) {
             log.error("❌ Unauthorized: ", se);
             return ResponseEntity.status(401).build();
+        } catch (ExportBusyException be) {
+            log.warn("🚦 Export busy, asking client to retry in {}s", be.getRetryAfterSeconds());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(be.getRetryAfterSeconds()))
+                    .build();
         } catch (Exception e) {
             log.error("❌ Error downloading excel: ", e);
             return ResponseEntity.internalServerError().build();
@@ -138,6 +158,14 @@ public class ExcelController {
             response.put("success", false);
             response.put("message", "Unauthorized");
             return ResponseEntity.status(401).body(response);
+        } catch (ExportBusyException be) {
+            log.warn("🚦 Export busy, asking client to retry in {}s", be.getRetryAfterSeconds());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", be.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(be.getRetryAfterSeconds()))
+                    .body(response);
         } catch (Exception e) {
             log.error("❌ Error emailing excel: ", e);
 
@@ -149,6 +177,82 @@ public class ExcelController {
         }
     }
 
+    @GetMapping(value = "excel/download/statement",
+            produces = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+    public ResponseEntity<ByteArrayResource> downloadStatementExcel() {
+        try {
+            log.info("📥 Download statement excel request received");
+
+            Long profileId = profileService.getCurrentProfile().getId();
+            log.info("👤 Profile ID: {}", profileId);
+
+            byte[] excelBytes = excelService.generateStatementExcel(profileId);
+            log.info("✅ Excel generated: {} bytes", excelBytes.length);
+
+            ByteArrayResource resource = new ByteArrayResource(excelBytes);
+
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=financial_statement.xlsx")
+                    .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                    .contentLength(excelBytes.length)
+                    .body(resource);
+
+        } catch (SecurityException se) {
+            log.error("❌ Unauthorized: ", se);
+            return ResponseEntity.status(401).build();
+        } catch (ExportBusyException be) {
+            log.warn("🚦 Export busy, asking client to retry in {}s", be.getRetryAfterSeconds());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(be.getRetryAfterSeconds()))
+                    .build();
+        } catch (Exception e) {
+            log.error("❌ Error downloading excel: ", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("email/statement-excel")
+    public ResponseEntity<Map<String, Object>> emailStatementExcel() {
+        try {
+            log.info("📧 Email statement excel request received");
+
+            Long profileId = profileService.getCurrentProfile().getId();
+            String userEmail = profileService.getCurrentProfile().getEmail();
+            log.info("👤 Sending to: {} (Profile ID: {})", userEmail, profileId);
+
+            excelService.sendStatementEmail(userEmail, profileId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", "Financial statement sent to " + userEmail + " successfully");
+
+            return ResponseEntity.ok(response);
+
+        } catch (SecurityException se) {
+            log.error("❌ Unauthorized: ", se);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Unauthorized");
+            return ResponseEntity.status(401).body(response);
+        } catch (ExportBusyException be) {
+            log.warn("🚦 Export busy, asking client to retry in {}s", be.getRetryAfterSeconds());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", be.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(be.getRetryAfterSeconds()))
+                    .body(response);
+        } catch (Exception e) {
+            log.error("❌ Error emailing excel: ", e);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Failed to email financial statement");
+
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
     @GetMapping("excel/test")
     public ResponseEntity<String> test() {
         log.info("🧪 Test endpoint hit!");
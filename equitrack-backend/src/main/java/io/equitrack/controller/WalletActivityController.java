@@ -1,37 +1,47 @@
 package io.equitrack.controller;
 
-import io.equitrack.entity.WalletActivityEntity; // NEW Import: Entity to be returned
-import io.equitrack.repository.WalletActivityRepository; // NEW Import: Repository to fetch data
+import io.equitrack.dto.WalletActivityPageDTO;
+import io.equitrack.service.WalletActivityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/transactions") // Base path: maps to /api/v1.0/transactions
 @CrossOrigin(origins = "*")
 public class WalletActivityController {
 
-    // Inject the repository to access the transaction log data
+    // Paged, filtered access to the transaction log
     @Autowired
-    private WalletActivityRepository walletActivityRepository;
+    private WalletActivityService walletActivityService;
 
     /**
      * GET /api/v1.0/transactions/profile/{profileId}
-     * Fetches all wallet activities for a given profile, ordered by date descending.
+     * Fetches one page of wallet activities for a given profile, newest first.
      * This fulfills the requirement for the frontend's Transaction History.
-     * * @param profileId The ID of the profile
-     * @return A list of WalletActivityEntity objects
+     * Optional filters: walletId, type, from / to (yyyy-MM-dd, inclusive); limit (default 50, max 200).
+     * Pass the returned nextCursor as ?cursor= to load the next page.
+     * @param profileId The ID of the profile
+     * @return A WalletActivityPageDTO with flat activity rows
      */
     @GetMapping("/profile/{profileId}")
-    public ResponseEntity<List<WalletActivityEntity>> getActivitiesByProfile(
-            @PathVariable Long profileId) {
-
-        // Use the custom repository method to fetch activities, sorted by newest first
-        List<WalletActivityEntity> activities =
-                walletActivityRepository.findByProfileIdOrderByCreatedAtDesc(profileId);
-
-        return ResponseEntity.ok(activities);
+    public ResponseEntity<?> getActivitiesByProfile(
+            @PathVariable Long profileId,
+            @RequestParam(required = false) Long walletId,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        try {
+            WalletActivityPageDTO page = walletActivityService.getActivityPage(
+                    profileId, walletId, type, from, to, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,14 +1,25 @@
 package io.equitrack.controller;
 
 
+import io.equitrack.dto.BalanceHistoryDTO;
+import io.equitrack.dto.ConvertedTotalDTO;
+import io.equitrack.dto.WalletBalanceDTO;
+import io.equitrack.dto.WalletBatchLegDTO;
+import io.equitrack.dto.WalletBatchRequestDTO;
 import io.equitrack.entity.WalletEntity;
+import io.equitrack.service.IdempotencyService;
+import io.equitrack.service.IdempotencyService.IdempotencyConflictException;
+import io.equitrack.service.WalletDepositCoalescer;
 import io.equitrack.service.WalletService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +31,12 @@ public class WalletController {
     @Autowired
     private WalletService walletService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private WalletDepositCoalescer walletDepositCoalescer;
+
     // Create new wallet
     @PostMapping("/profile/{profileId}")
     public ResponseEntity<?> createWallet(
@@ -27,7 +44,7 @@ public class WalletController {
             @RequestBody Map<String, String> request) {
         try {
             String walletType = request.get("walletType");
-            WalletEntity wallet = walletService.createWallet(profileId, walletType);
+            WalletEntity wallet = walletService.createWallet(profileId, walletType, request.get("currency"));
             return ResponseEntity.ok(wallet);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -56,54 +73,141 @@ public class WalletController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
-    // Deposit money
+    // Deposit money (retries with the same Idempotency-Key replay the first response;
+    // with deposit coalescing enabled, concurrent deposits to one wallet share a group commit)
     @PostMapping("/{walletId}/deposit")
     public ResponseEntity<?> deposit(
             @PathVariable Long walletId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestBody Map<String, BigDecimal> request) {
         try {
             BigDecimal amount = request.get("amount");
-            WalletEntity wallet = walletService.deposit(walletId, amount);
-            return ResponseEntity.ok(wallet);
+            return idempotencyService.execute(idempotencyKey, "wallet-deposit", new Object[]{walletId, amount},
+                    () -> ResponseEntity.ok(walletDepositCoalescer.deposit(walletId, amount)));
+        } catch (IdempotencyConflictException ce) {
+            return ResponseEntity.status(ce.getStatus()).body(ce.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    // Withdraw money
+    // Withdraw money (retries with the same Idempotency-Key replay the first response)
     @PostMapping("/{walletId}/withdraw")
     public ResponseEntity<?> withdraw(
             @PathVariable Long walletId,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @RequestBody Map<String, BigDecimal> request) {
         try {
             BigDecimal amount = request.get("amount");
-            WalletEntity wallet = walletService.withdraw(walletId, amount);
-            return ResponseEntity.ok(wallet);
+            return idempotencyService.execute(idempotencyKey, "wallet-withdraw", new Object[]{walletId, amount},
+                    () -> ResponseEntity.ok(walletService.withdraw(walletId, amount)));
+        } catch (IdempotencyConflictException ce) {
+            return ResponseEntity.status(ce.getStatus()).body(ce.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    // Transfer between wallets
+    // Transfer between wallets (retries with the same Idempotency-Key replay the first response)
     @PostMapping("/transfer")
-    public ResponseEntity<?> transfer(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<?> transfer(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, Object> request) {
         try {
             Long fromWalletId = Long.valueOf(request.get("fromWalletId").toString());
             Long toWalletId = Long.valueOf(request.get("toWalletId").toString());
             BigDecimal amount = new BigDecimal(request.get("amount").toString());
 
-            walletService.transfer(fromWalletId, toWalletId, amount);
-            return ResponseEntity.ok("Transfer successful");
+            return idempotencyService.execute(idempotencyKey, "wallet-transfer", new Object[]{fromWalletId, toWalletId, amount},
+                    () -> {
+                        walletService.transfer(fromWalletId, toWalletId, amount);
+                        return ResponseEntity.ok("Transfer successful");
+                    });
+        } catch (IdempotencyConflictException ce) {
+            return ResponseEntity.status(ce.getStatus()).body(ce.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
-    // Get total balance
+    // Several deposits / withdrawals / transfers applied together or not at all
+    // (retries with the same Idempotency-Key replay the first response)
+    @PostMapping("/batch")
+    public ResponseEntity<?> applyBatch(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody WalletBatchRequestDTO request) {
+        try {
+            List<WalletBatchLegDTO> legs = request.getLegs() != null ? request.getLegs() : List.of();
+            List<Object> parameters = new ArrayList<>();
+            for (WalletBatchLegDTO leg : legs) {
+                parameters.add(leg.getType());
+                parameters.add(leg.getFromWalletId());
+                parameters.add(leg.getToWalletId());
+                parameters.add(leg.getAmount());
+            }
+            return idempotencyService.execute(idempotencyKey, "wallet-batch", parameters.toArray(),
+                    () -> ResponseEntity.ok(walletService.applyBatch(legs)));
+        } catch (IdempotencyConflictException ce) {
+            return ResponseEntity.status(ce.getStatus()).body(ce.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Get total balance (all wallets converted to the profile's base currency; wallets in a
+    // currency without an exchange rate are left out and listed in unconvertedCurrencies)
     @GetMapping("/profile/{profileId}/total-balance")
-    public ResponseEntity<Map<String, BigDecimal>> getTotalBalance(@PathVariable Long profileId) {
-        BigDecimal total = walletService.getTotalBalance(profileId);
-        return ResponseEntity.ok(Map.of("totalBalance", total));
+    public ResponseEntity<?> getTotalBalance(@PathVariable Long profileId) {
+        try {
+            ConvertedTotalDTO total = walletService.getTotalBalance(profileId);
+            return ResponseEntity.ok(Map.of("totalBalance", total.getTotal(), "currency", total.getCurrency(),
+                    "unconvertedCurrencies", total.getUnconvertedCurrencies()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Balance computed from the ledger, optionally as of a past moment (?asOf=2026-10-01T00:00:00)
+    @GetMapping("/{walletId}/balance")
+    public ResponseEntity<?> getBalanceAsOf(
+            @PathVariable Long walletId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        try {
+            WalletBalanceDTO balance = walletService.getBalanceAsOf(walletId, asOf);
+            return ResponseEntity.ok(balance);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Balance over time for charts (?bucket=DAY&from=2026-09-01T00:00:00&to=2026-10-01T00:00:00)
+    @GetMapping("/{walletId}/balance-history")
+    public ResponseEntity<?> getBalanceHistory(
+            @PathVariable Long walletId,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            BalanceHistoryDTO history = walletService.getBalanceHistory(walletId, bucket, from, to);
+            return ResponseEntity.ok(history);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // Combined balance over time of all wallets of a profile
+    @GetMapping("/profile/{profileId}/balance-history")
+    public ResponseEntity<?> getProfileBalanceHistory(
+            @PathVariable Long profileId,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            BalanceHistoryDTO history = walletService.getProfileBalanceHistory(profileId, bucket, from, to);
+            return ResponseEntity.ok(history);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     // Update wallet
@@ -0,0 +1,46 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+import java.time.LocalDateTime;     // Range boundaries
+import java.util.List;              // Chart points
+
+/**
+ * Balance over time for one wallet, or for all wallets of a profile combined
+ * (converted to the profile's base currency with the current exchange rates)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceHistoryDTO {
+
+    // Wallet the history belongs to (null for a profile aggregate)
+    private Long walletId;
+
+    // Profile the history belongs to (null for a single wallet)
+    private Long profileId;
+
+    // Bucket size: HOUR, DAY, WEEK, MONTH or YEAR
+    private String bucket;
+
+    // Range covered: [from, to)
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    // Currency of every amount: the wallet's own, or the profile's base currency for an aggregate
+    private String currency;
+
+    // Balance just before the range starts
+    private BigDecimal openingBalance;
+
+    // Aggregate only: wallet currencies without an exchange rate - those wallets are NOT included
+    private List<String> unconvertedCurrencies;
+
+    // One point per bucket, oldest first; buckets without activity repeat the previous balance
+    private List<BalanceHistoryPointDTO> points;
+}
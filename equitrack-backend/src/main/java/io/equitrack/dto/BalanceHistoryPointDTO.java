@@ -0,0 +1,29 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields (used by JPQL "SELECT new")
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+import java.time.LocalDateTime;     // Start of the bucket
+
+/**
+ * One point of a balance chart: the balance at the end of a time bucket
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BalanceHistoryPointDTO {
+
+    // Start of the bucket (hour, day, week, month or year)
+    private LocalDateTime bucketStart;
+
+    // Net money in/out during the bucket
+    private BigDecimal change;
+
+    // Balance after the last activity of the bucket
+    // (the database query returns the running sum since the range start here; the service adds the opening balance)
+    private BigDecimal balance;
+}
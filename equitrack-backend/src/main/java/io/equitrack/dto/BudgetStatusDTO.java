@@ -0,0 +1,55 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+import java.time.LocalDate;         // Period window boundaries
+
+/**
+ * How much of one budget has been used in its current period window
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BudgetStatusDTO {
+
+    private Long budgetId;
+    private Long categoryId;
+    private String categoryName;
+
+    // DAILY, WEEKLY, MONTHLY or YEARLY
+    private String period;
+
+    private BigDecimal limitAmount;
+
+    // Expenses in the budget's category within the window
+    private BigDecimal spent;
+
+    // limitAmount - spent (negative when the budget is exceeded)
+    private BigDecimal remaining;
+
+    // spent as a percentage of limitAmount (may exceed 100)
+    private BigDecimal percentage;
+
+    // Current period window, both days inclusive
+    private LocalDate windowStart;
+    private LocalDate windowEnd;
+
+    /**
+     * Row of the grouped budget status query - remaining, percentage and the window are
+     * filled in by BudgetService
+     */
+    public BudgetStatusDTO(Long budgetId, Long categoryId, String categoryName, String period,
+                           BigDecimal limitAmount, BigDecimal spent) {
+        this.budgetId = budgetId;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.period = period;
+        this.limitAmount = limitAmount;
+        this.spent = spent;
+    }
+}
@@ -0,0 +1,28 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+import java.util.List;              // Currencies left out of the total
+
+/**
+ * Per-currency totals added up in one target currency
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ConvertedTotalDTO {
+
+    // Sum of everything that could be converted, in currency
+    private BigDecimal total;
+
+    // ISO 4217 code of the total
+    private String currency;
+
+    // Currencies without an exchange rate - their balances are NOT in total
+    private List<String> unconvertedCurrencies;
+}
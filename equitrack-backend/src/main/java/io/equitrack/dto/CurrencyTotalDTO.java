@@ -0,0 +1,24 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields (used by JPQL "SELECT new")
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+
+/**
+ * Sum of wallet balances in one currency (one row of a GROUP BY currency)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CurrencyTotalDTO {
+
+    // ISO 4217 code of the wallets summed
+    private String currency;
+
+    // Sum of their balances, in that currency
+    private BigDecimal total;
+}
@@ -0,0 +1,35 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields (used by JPQL "SELECT new")
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+
+/**
+ * One expense of the day together with its owner, for the daily expense summary job
+ * Rows arrive ordered by profile, so consecutive rows with the same profileId form one email
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyExpenseRowDTO {
+
+    // Owner of the expense
+    private Long profileId;
+
+    // Owner's email address
+    private String email;
+
+    // Owner's display name
+    private String fullName;
+
+    // Expense description or title
+    private String name;
+
+    // Expense amount
+    private BigDecimal amount;
+
+    // Category name, null when the category is missing
+    private String categoryName;
+}
@@ -0,0 +1,28 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor
+
+import java.util.Map;               // Template parameters keyed by name
+
+/**
+ * One recipient of a batch email
+ * The shared HTML template reads the per-recipient values as {{ params.<key> }}
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmailRecipientDTO {
+
+    // Recipient email address
+    private String email;
+
+    // Recipient display name (optional)
+    private String name;
+
+    // Values substituted into the template for this recipient only
+    private Map<String, Object> params;
+}
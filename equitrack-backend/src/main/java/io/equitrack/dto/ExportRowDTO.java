@@ -0,0 +1,30 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields (used by JPQL "SELECT new")
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+import java.time.LocalDate;         // Date without time (for transaction date)
+
+/**
+ * Lightweight projection of an income or expense row for Excel exports
+ * Loaded directly by JPQL constructor expressions - no entity graph, no lazy category loads
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ExportRowDTO {
+
+    // Transaction description or title
+    private String name;
+
+    // Transaction amount
+    private BigDecimal amount;
+
+    // Date when the transaction occurred
+    private LocalDate date;
+
+    // Category name, null when the category is missing
+    private String categoryName;
+}
@@ -0,0 +1,19 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields (used by JPQL "SELECT new")
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor
+
+/**
+ * Lowest and highest id of a set of rows - the range a BatchJobRunner run is partitioned over
+ * Both are null when the set is empty
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class IdRangeDTO {
+
+    private Long minId;
+
+    private Long maxId;
+}
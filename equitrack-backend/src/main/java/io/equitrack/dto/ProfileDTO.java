@@ -35,6 +35,15 @@ public class ProfileDTO {
     private String phone;
     private String bio;
 
+    // Preferred timezone for scheduled emails (IANA id, e.g. "Asia/Manila")
+    private String timezone;
+
+    // Local hour (0-23) for the daily reminder email
+    private Integer notifyHour;
+
+    // Currency that wallet totals are shown in (ISO 4217, e.g. "PHP")
+    private String baseCurrency;
+
     // Timestamp when user account was created (auto-set by system)
     private LocalDateTime createdAt;
 
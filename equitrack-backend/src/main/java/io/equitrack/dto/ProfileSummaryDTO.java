@@ -0,0 +1,24 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields (used by JPQL "SELECT new")
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor
+
+/**
+ * Minimal profile projection for user-wide jobs (notifications)
+ * Loaded directly by JPQL - no password, no lazy wallet collection, nothing kept managed
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProfileSummaryDTO {
+
+    // Profile ID (also the keyset cursor for chunked iteration)
+    private Long id;
+
+    // User's email address
+    private String email;
+
+    // User's display name
+    private String fullName;
+}
@@ -0,0 +1,41 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields (used by JPQL "SELECT new")
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+import java.time.LocalDateTime;     // Date with time (for activity timestamp)
+
+/**
+ * Flat projection of a wallet activity (deposit, withdrawal or transfer leg)
+ * Replaces the WalletActivityEntity -> WalletEntity graph in read paths
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WalletActivityDTO {
+
+    // Unique database identifier of the activity
+    private Long id;
+
+    // Wallet the activity belongs to
+    private Long walletId;
+
+    // Wallet type for display (MAIN, SAVINGS, ...)
+    private String walletType;
+
+    // Signed amount: positive for money in, negative for money out
+    private BigDecimal amount;
+
+    // Activity type: DEPOSIT, WITHDRAW, TRANSFER_OUT, TRANSFER_IN
+    private String type;
+
+    // Other wallet involved in a transfer, null otherwise
+    private Long relatedWalletId;
+
+    // Timestamp when the activity was recorded
+    private LocalDateTime createdAt;
+}
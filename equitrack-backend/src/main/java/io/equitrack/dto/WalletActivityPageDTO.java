@@ -0,0 +1,28 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.util.List;              // Page rows
+
+/**
+ * One page of wallet activity history (newest first)
+ * Pass nextCursor back as ?cursor= to get the following page
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WalletActivityPageDTO {
+
+    // Activities on this page
+    private List<WalletActivityDTO> items;
+
+    // Opaque cursor for the next page, null when this is the last page
+    private String nextCursor;
+
+    // True if more activities exist after this page
+    private boolean hasMore;
+}
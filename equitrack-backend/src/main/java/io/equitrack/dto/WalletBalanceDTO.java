@@ -0,0 +1,31 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+import java.time.LocalDateTime;     // Date with time (point in time of the balance)
+
+/**
+ * Wallet balance computed from the ledger (latest snapshot + tail entries)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WalletBalanceDTO {
+
+    // Wallet the balance belongs to
+    private Long walletId;
+
+    // Balance after the last ledger entry at or before asOf
+    private BigDecimal balance;
+
+    // Last ledger entry included (0 = no entries yet)
+    private Long sequenceNo;
+
+    // Point in time the balance was requested for
+    private LocalDateTime asOf;
+}
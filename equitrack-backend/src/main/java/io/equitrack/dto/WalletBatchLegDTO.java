@@ -0,0 +1,30 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+
+/**
+ * One leg of a wallet batch operation
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WalletBatchLegDTO {
+
+    // DEPOSIT (toWalletId), WITHDRAW (fromWalletId) or TRANSFER (both)
+    private String type;
+
+    // Wallet the money leaves (WITHDRAW, TRANSFER)
+    private Long fromWalletId;
+
+    // Wallet the money enters (DEPOSIT, TRANSFER)
+    private Long toWalletId;
+
+    // Amount moved (must be positive)
+    private BigDecimal amount;
+}
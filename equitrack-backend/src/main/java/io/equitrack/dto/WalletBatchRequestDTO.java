@@ -0,0 +1,22 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.util.List;              // Legs in the order they are applied
+
+/**
+ * Several wallet movements applied as one all-or-nothing operation
+ * (e.g. deposit a paycheck, then split it into savings, bills and spending)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WalletBatchRequestDTO {
+
+    // Applied in order - a later leg may spend money an earlier leg brought in
+    private List<WalletBatchLegDTO> legs;
+}
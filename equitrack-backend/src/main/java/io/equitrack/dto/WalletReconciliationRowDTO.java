@@ -0,0 +1,29 @@
+package io.equitrack.dto;
+
+import lombok.AllArgsConstructor;    // Lombok: Generates constructor with all fields (used by JPQL "SELECT new")
+import lombok.Builder;              // Lombok: Enables builder pattern for object creation
+import lombok.Data;                 // Lombok: Auto-generates getters, setters, toString, equals, hashCode
+import lombok.NoArgsConstructor;    // Lombok: Generates empty constructor for JSON deserialization
+
+import java.math.BigDecimal;        // Precise decimal numbers for monetary values
+
+/**
+ * Cached vs. ledger balance of one wallet, as read by the reconciliation query
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WalletReconciliationRowDTO {
+
+    private Long walletId;
+
+    // Ledger position both balances refer to
+    private Long sequenceNo;
+
+    // tbl_wallets.balance
+    private BigDecimal cachedBalance;
+
+    // Latest snapshot + ledger entries after it
+    private BigDecimal ledgerBalance;
+}
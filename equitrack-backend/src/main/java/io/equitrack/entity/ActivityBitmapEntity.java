@@ -0,0 +1,55 @@
+package io.equitrack.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Serialized Roaring bitmap of the profile ids that logged an income or expense on one local day
+ *
+ * Each node writes its own row per day; readers OR the rows of a day together.
+ */
+@Entity
+@Table(name = "tbl_activity_bitmaps",
+        uniqueConstraints = @UniqueConstraint(name = "uk_activity_bitmap_day_node",
+                columnNames = {"activity_date", "node_id"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ActivityBitmapEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // User's local date the activity happened on
+    @Column(name = "activity_date", nullable = false)
+    private LocalDate activityDate;
+
+    // Node that recorded these users
+    @Column(name = "node_id", length = 150, nullable = false)
+    private String nodeId;
+
+    public static final int FORMAT_64 = 64;
+
+    // Roaring64Bitmap.serialize() output (RoaringBitmap.serialize() for rows without a format)
+    @Column(name = "bitmap", length = 16777216, nullable = false)
+    private byte[] bitmap;
+
+    // 64 = Roaring64Bitmap; null = 32-bit RoaringBitmap written before profile ids were 64-bit
+    @Column(name = "bitmap_format")
+    private Integer bitmapFormat;
+
+    // Number of users in the bitmap
+    @Column(nullable = false)
+    private long cardinality;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
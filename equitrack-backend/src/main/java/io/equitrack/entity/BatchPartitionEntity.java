@@ -0,0 +1,83 @@
+package io.equitrack.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One id-range slice of a batch job run, with its progress checkpoint
+ *
+ * The checkpoint (lastProcessedId) is written in the same transaction as the work of each
+ * chunk, so a restarted run continues exactly after the last committed chunk.
+ */
+@Entity
+@Table(name = "tbl_batch_partitions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_batch_partition",
+                columnNames = {"job_name", "occurrence", "partition_no"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchPartitionEntity {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_name", length = 100, nullable = false)
+    private String jobName;
+
+    // Run this partition belongs to (e.g. the run date)
+    @Column(length = 50, nullable = false)
+    private String occurrence;
+
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    // Id range covered by this partition: (rangeStart - 1, rangeEnd]
+    @Column(name = "range_start", nullable = false)
+    private Long rangeStart;
+
+    @Column(name = "range_end", nullable = false)
+    private Long rangeEnd;
+
+    // Checkpoint - every id up to and including this one is done
+    @Column(name = "last_processed_id", nullable = false)
+    private Long lastProcessedId;
+
+    @Column(name = "items_processed", nullable = false)
+    private long itemsProcessed;
+
+    // Status: PENDING, RUNNING, DONE, FAILED
+    @Column(length = 20, nullable = false)
+    private String status;
+
+    // Worker currently processing the partition and how long its claim is valid
+    @Column(length = 150)
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // Wall time of the attempt that completed the partition
+    @Column(name = "duration_ms")
+    private Long durationMs;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+}
@@ -0,0 +1,94 @@
+package io.equitrack.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * One queued email, written in the same transaction as the business change that caused it
+ * and delivered later by EmailOutboxWorker.
+ *
+ * Lifecycle: PENDING -> SENDING -> SENT, or back to PENDING with a backoff on failure,
+ * and DEAD once max attempts are used up. SENT and DEAD rows are deleted by a nightly purge
+ * once they are older than equitrack.email.outbox.retention-days.
+ */
+@Entity
+@Table(name = "tbl_email_outbox",
+        indexes = {
+                @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at"),
+                @Index(name = "idx_email_outbox_status_created", columnList = "status, created_at, id")
+        })
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmailOutboxEntity {
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SENDING = "SENDING";
+    public static final String STATUS_SENT = "SENT";
+    public static final String STATUS_DEAD = "DEAD";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    // Optional display name for the recipient
+    @Column(name = "recipient_name")
+    private String recipientName;
+
+    @Column(nullable = false)
+    private String subject;
+
+    // Full HTML, or a shared template with {{ params.* }} placeholders when paramsJson is set
+    @Column(name = "html_body", columnDefinition = "TEXT", nullable = false)
+    private String htmlBody;
+
+    // Per-recipient template params as JSON (null for plain emails)
+    @Column(name = "params_json", columnDefinition = "TEXT")
+    private String paramsJson;
+
+    @Column(name = "attachment_name")
+    private String attachmentName;
+
+    // Raw attachment bytes (e.g. an Excel export)
+    @Column(name = "attachment", length = 16777216)
+    private byte[] attachment;
+
+    // Status: PENDING, SENDING, SENT, DEAD
+    @Column(length = 20, nullable = false)
+    private String status;
+
+    // Delivery attempts made so far (incremented when a worker claims the row)
+    @Column(nullable = false)
+    private int attempts;
+
+    // Earliest time a worker may pick this row up
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    // Worker node that currently holds the row, and when it claimed it
+    @Column(name = "claimed_by", length = 100)
+    private String claimedBy;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -0,0 +1,37 @@
+package io.equitrack.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Exchange rate of one currency against the reference currency (equitrack.currency.reference)
+ *
+ * Maintained outside the application (admin SQL or an import job); CurrencyService keeps the
+ * whole table in memory and reloads it periodically, so conversions never query it.
+ */
+@Entity
+@Table(name = "tbl_exchange_rates")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ExchangeRateEntity {
+
+    // ISO 4217 code, e.g. "USD"
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    // Units of the reference currency for 1 unit of this currency (e.g. USD -> 56.10 PHP)
+    @Column(nullable = false, precision = 19, scale = 8)
+    private BigDecimal rate;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
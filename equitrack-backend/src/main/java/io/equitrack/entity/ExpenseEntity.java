@@ -1,13 +1,20 @@
 package io.equitrack.entity;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
 
 @Entity
-@Table(name = "tbl_expenses")
+@Table(name = "tbl_expenses",
+        indexes = {
+                // Daily expense summary reads one day across all users
+                @Index(name = "idx_expenses_date_profile", columnList = "date, profile_id"),
+                // Budget status sums one category of one user over a date window
+                @Index(name = "idx_expenses_profile_category_date", columnList = "profile_id, category_id, date")
+        })
 @Getter
 @Setter
 @SuperBuilder(toBuilder = true)
@@ -0,0 +1,67 @@
+package io.equitrack.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One Idempotency-Key sent with a wallet mutation, and the response it produced
+ *
+ * A retry with the same key and the same request gets the stored response back instead of
+ * moving money again. Rows are deleted by a background sweep once they expire.
+ */
+@Entity
+@Table(name = "tbl_idempotency_keys",
+        indexes = @Index(name = "idx_idempotency_keys_expires", columnList = "expires_at"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IdempotencyKeyEntity {
+
+    public static final String STATUS_IN_PROGRESS = "IN_PROGRESS";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    // "<profile id>:<key chosen by the client>" - keys are per user, so one user can never
+    // collide with or replay another user's key
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+
+    // Endpoint the key was first used with, e.g. "wallet-deposit"
+    @Column(length = 50, nullable = false)
+    private String operation;
+
+    // SHA-256 of operation + request parameters; a reused key with another request is rejected
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    // Status: IN_PROGRESS, COMPLETED
+    @Column(length = 20, nullable = false)
+    private String status;
+
+    // Random token of the request that owns the reservation; only that request may complete
+    // or release it, so a slow original cannot overwrite a retry that took over a stale key
+    @Column(name = "owner_token", length = 36)
+    private String ownerToken;
+
+    // Stored response, replayed as-is
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_content_type", length = 100)
+    private String responseContentType;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,62 @@
+package io.equitrack.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease-based lock for one scheduled job, shared by every node
+ *
+ * A node may run an occurrence (e.g. the 2026-10-19 reminder) only while it owns the row and
+ * its lease has not expired. The owner extends the lease with heartbeats; if it dies, the
+ * lease runs out and another node takes the occurrence over. A FAILED occurrence is retried
+ * a few times, resuming from whatever the failed run checkpointed.
+ */
+@Entity
+@Table(name = "tbl_job_locks")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JobLockEntity {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    // Job identifier, e.g. "daily-reminder"
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    // Node that holds (or last held) the lock
+    @Column(length = 150)
+    private String owner;
+
+    // Occurrence the lock was taken for, e.g. the run date
+    @Column(length = 50)
+    private String occurrence;
+
+    // Status: RUNNING, DONE, FAILED
+    @Column(length = 20, nullable = false)
+    private String status;
+
+    // Runs of the current occurrence so far (first run, takeovers and retries of a FAILED run)
+    private Integer attempts;
+
+    // Most recent occurrence that finished DONE (used by jobs that catch up on missed runs)
+    @Column(name = "last_completed", length = 50)
+    private String lastCompleted;
+
+    // The lock is free for takeover once this passes without a heartbeat
+    @Column(name = "lease_until", nullable = false)
+    private LocalDateTime leaseUntil;
+
+    // Last time the owner reported it was alive
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+}
@@ -7,15 +7,22 @@ import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
-@Table(name = "tbl_profiles")
+@Table(name = "tbl_profiles",
+        // Notification dispatcher reads one (timezone, hour, minute) slot per minute
+        indexes = @Index(name = "idx_profiles_notify_slot", columnList = "timezone, notify_hour, notify_minute, id"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class ProfileEntity {
 
+    public static final String DEFAULT_TIMEZONE = "Asia/Manila";
+    public static final int DEFAULT_NOTIFY_HOUR = 10;
+    public static final String DEFAULT_BASE_CURRENCY = "PHP";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -42,6 +49,32 @@ public class ProfileEntity {
     private Boolean isActive;
     private String activationToken;
 
+    // Preferred timezone for scheduled emails (IANA id, e.g. "Asia/Manila")
+    @Column(length = 64)
+    private String timezone;
+
+    // Local hour (0-23) of the daily reminder; the expense summary goes out one hour later
+    @Column(name = "notify_hour")
+    private Integer notifyHour;
+
+    // Minute within that hour - assigned at random so users are spread across the hour
+    @Column(name = "notify_minute")
+    private Integer notifyMinute;
+
+    // Currency that wallet totals are converted to (ISO 4217, e.g. "PHP")
+    @Column(name = "base_currency", length = 3)
+    private String baseCurrency;
+
+    // Export data versions - bumped by the income/expense/wallet write paths, never written through the entity
+    @Column(name = "income_data_version", insertable = false, updatable = false)
+    private Long incomeDataVersion;
+
+    @Column(name = "expense_data_version", insertable = false, updatable = false)
+    private Long expenseDataVersion;
+
+    @Column(name = "wallet_data_version", insertable = false, updatable = false)
+    private Long walletDataVersion;
+
     @OneToMany(mappedBy = "profile", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference("profile-wallets")  // ✅ FIXED
     private List<WalletEntity> wallets;
@@ -51,5 +84,17 @@ public class ProfileEntity {
         if(this.isActive == null){
             this.isActive = false;
         }
+        if(this.timezone == null){
+            this.timezone = DEFAULT_TIMEZONE;
+        }
+        if(this.notifyHour == null){
+            this.notifyHour = DEFAULT_NOTIFY_HOUR;
+        }
+        if(this.baseCurrency == null){
+            this.baseCurrency = DEFAULT_BASE_CURRENCY;
+        }
+        if(this.notifyMinute == null){
+            this.notifyMinute = ThreadLocalRandom.current().nextInt(60);
+        }
     }
 }
\ No newline at end of file
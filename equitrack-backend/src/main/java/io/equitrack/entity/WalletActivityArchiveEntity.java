@@ -0,0 +1,61 @@
+package io.equitrack.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Wallet activity moved out of tbl_wallet_activities by the archive job
+ *
+ * Same columns and ids as the hot table, so ledger sums and history pages can read both
+ * tables the same way. Wallet and profile are plain ids - archived rows are never loaded as
+ * part of an entity graph.
+ */
+@Entity
+@Table(name = "tbl_wallet_activities_archive",
+        uniqueConstraints = @UniqueConstraint(name = "uk_wallet_activities_archive_wallet_seq", columnNames = {"wallet_id", "sequence_no"}),
+        indexes = {
+                @Index(name = "idx_wallet_activities_archive_profile_created", columnList = "profile_id, created_at, id"),
+                @Index(name = "idx_wallet_activities_archive_wallet_created", columnList = "wallet_id, created_at, id")
+        })
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WalletActivityArchiveEntity {
+
+    // Id of the original tbl_wallet_activities row
+    @Id
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    @Column(name = "profile_id", nullable = false)
+    private Long profileId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    // Type: DEPOSIT, WITHDRAW, TRANSFER_OUT, TRANSFER_IN
+    @Column(name = "activity_type", length = 20, nullable = false)
+    private String type;
+
+    @Column(name = "related_wallet_id")
+    private Long relatedWalletId;
+
+    @Column(name = "sequence_no")
+    private Long sequenceNo;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // When the archive job moved the row
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
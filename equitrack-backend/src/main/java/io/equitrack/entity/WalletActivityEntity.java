@@ -13,7 +13,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tbl_wallet_activities")
+@Table(name = "tbl_wallet_activities",
+        uniqueConstraints = @UniqueConstraint(name = "uk_wallet_activities_wallet_seq", columnNames = {"wallet_id", "sequence_no"}),
+        indexes = {
+                @Index(name = "idx_wallet_activities_profile_created", columnList = "profile_id, created_at, id"),
+                @Index(name = "idx_wallet_activities_wallet_created", columnList = "wallet_id, created_at, id"),
+                @Index(name = "idx_wallet_activities_created", columnList = "created_at, id")
+        })
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -45,6 +51,10 @@ public class WalletActivityEntity {
     @Column(name = "activity_type", length = 20, nullable = false)
     private String type;
 
+    // Position in the wallet's append-only ledger (1, 2, 3, ...), assigned with the balance update
+    @Column(name = "sequence_no")
+    private Long sequenceNo;
+
     // Optional: ID of the other wallet in case of a transfer
     @Column(name = "related_wallet_id")
     private Long relatedWalletId;
@@ -1,7 +1,6 @@
 package io.equitrack.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,8 +8,6 @@ import lombok.Data;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Entity
 @Table(name = "tbl_wallets")
@@ -28,17 +25,17 @@ public class WalletEntity {
     @JsonBackReference("profile-wallets")
     private ProfileEntity profile;
 
-    // ✅ FIXED:
-    // 1. cascade = CascadeType.ALL allows Deletion.
-    // 2. @JsonIgnore prevents the "Unknown Wallet" infinite loop error.
-    @OneToMany(mappedBy = "wallet", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonIgnore
-    @Builder.Default
-    private List<WalletActivityEntity> activities = new ArrayList<>();
+    // Activities are not mapped as a collection: they are read through WalletActivityRepository
+    // (paged) and removed in bulk chunks by WalletService.deleteWallet, never loaded per wallet
 
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal balance;
 
+    // Sequence number of the latest ledger entry (tbl_wallet_activities) - the balance is the
+    // cached sum of entries 1..ledgerSeq and is verified against the ledger at every snapshot
+    @Column(name = "ledger_seq")
+    private Long ledgerSeq;
+
     @Column(length = 50)
     private String currency;
 
@@ -58,7 +55,6 @@ public class WalletEntity {
         this.balance = BigDecimal.ZERO;
         this.currency = "PHP";
         this.isActive = true;
-        this.activities = new ArrayList<>();
     }
 
     public WalletEntity(ProfileEntity profile, BigDecimal balance, String walletType) {
@@ -67,11 +63,13 @@ public class WalletEntity {
         this.walletType = walletType;
         this.currency = "PHP";
         this.isActive = true;
-        this.activities = new ArrayList<>();
     }
 
     @PrePersist
     protected void onCreate() {
+        if (ledgerSeq == null) {
+            ledgerSeq = 0L;
+        }
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
     }
@@ -99,14 +97,6 @@ public class WalletEntity {
         this.profile = profile;
     }
 
-    public List<WalletActivityEntity> getActivities() {
-        return activities;
-    }
-
-    public void setActivities(List<WalletActivityEntity> activities) {
-        this.activities = activities;
-    }
-
     public BigDecimal getBalance() {
         return balance;
     }
@@ -115,6 +105,14 @@ public class WalletEntity {
         this.balance = balance;
     }
 
+    public Long getLedgerSeq() {
+        return ledgerSeq;
+    }
+
+    public void setLedgerSeq(Long ledgerSeq) {
+        this.ledgerSeq = ledgerSeq;
+    }
+
     public String getCurrency() {
         return currency;
     }
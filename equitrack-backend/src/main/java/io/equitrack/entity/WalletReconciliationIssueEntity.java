@@ -0,0 +1,66 @@
+package io.equitrack.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A wallet whose cached balance did not match its ledger during a reconciliation run
+ *
+ * Written in the same transaction as the chunk checkpoint of the run, so a resumed run never
+ * reports a wallet twice. Keyed by wallet id only - the report outlives deleted wallets.
+ */
+@Entity
+@Table(name = "tbl_wallet_reconciliation_issues",
+        uniqueConstraints = @UniqueConstraint(name = "uk_wallet_reconciliation_run_wallet",
+                columnNames = {"occurrence", "wallet_id"}),
+        indexes = @Index(name = "idx_wallet_reconciliation_status", columnList = "status, detected_at"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WalletReconciliationIssueEntity {
+
+    public static final String STATUS_MISMATCH = "MISMATCH";
+    public static final String STATUS_REPAIRED = "REPAIRED";
+    public static final String STATUS_RESOLVED = "RESOLVED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Run that found the mismatch (e.g. the run date)
+    @Column(length = 50, nullable = false)
+    private String occurrence;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    // Ledger position the balances were compared at
+    @Column(name = "sequence_no")
+    private Long sequenceNo;
+
+    // tbl_wallets.balance at that position
+    @Column(name = "cached_balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal cachedBalance;
+
+    // Latest snapshot + ledger entries after it
+    @Column(name = "ledger_balance", nullable = false, precision = 19, scale = 2)
+    private BigDecimal ledgerBalance;
+
+    // Status: MISMATCH (reported only), REPAIRED (cached balance reset to the ledger),
+    // RESOLVED (already consistent again when the repair took the lock)
+    @Column(length = 20, nullable = false)
+    private String status;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+
+    @Column(name = "repaired_at")
+    private LocalDateTime repairedAt;
+}
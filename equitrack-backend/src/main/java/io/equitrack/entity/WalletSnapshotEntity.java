@@ -0,0 +1,44 @@
+package io.equitrack.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Balance of a wallet after ledger entry sequenceNo
+ *
+ * Written every N ledger entries, so any balance (current or historic) is a snapshot plus at
+ * most N entries of tail. Keyed by wallet id only - no foreign key, snapshots are removed
+ * together with the wallet by WalletService.
+ */
+@Entity
+@Table(name = "tbl_wallet_snapshots",
+        uniqueConstraints = @UniqueConstraint(name = "uk_wallet_snapshots_wallet_seq", columnNames = {"wallet_id", "sequence_no"}))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WalletSnapshotEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "wallet_id", nullable = false)
+    private Long walletId;
+
+    // Ledger entries 1..sequenceNo are included in the balance
+    @Column(name = "sequence_no", nullable = false)
+    private Long sequenceNo;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,39 @@
+package io.equitrack.repository;
+
+import io.equitrack.entity.ActivityBitmapEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ActivityBitmapRepository extends JpaRepository<ActivityBitmapEntity, Long> {
+
+    /**
+     * EVERY NODE'S BITMAP FOR ONE DAY
+     * SQL: SELECT * FROM tbl_activity_bitmaps WHERE activity_date = ?
+     * Used in: ActivityBitmapService (union of all nodes)
+     */
+    List<ActivityBitmapEntity> findByActivityDate(LocalDate activityDate);
+
+    /**
+     * THIS NODE'S BITMAP FOR ONE DAY
+     * SQL: SELECT * FROM tbl_activity_bitmaps WHERE activity_date = ? AND node_id = ?
+     * Used in: ActivityBitmapService flush
+     */
+    Optional<ActivityBitmapEntity> findByActivityDateAndNodeId(LocalDate activityDate, String nodeId);
+
+    /**
+     * DROP BITMAPS PAST RETENTION
+     * SQL: DELETE FROM tbl_activity_bitmaps WHERE activity_date < ?
+     * Used in: ActivityBitmapService daily cleanup
+     */
+    @Modifying
+    @Query("DELETE FROM ActivityBitmapEntity b WHERE b.activityDate < :before")
+    int deleteOlderThan(@Param("before") LocalDate before);
+}
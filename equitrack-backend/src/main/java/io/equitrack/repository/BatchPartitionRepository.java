@@ -0,0 +1,78 @@
+package io.equitrack.repository;
+
+import io.equitrack.entity.BatchPartitionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface BatchPartitionRepository extends JpaRepository<BatchPartitionEntity, Long> {
+
+    /**
+     * ALL PARTITIONS OF ONE RUN
+     * SQL: SELECT * FROM tbl_batch_partitions WHERE job_name = ? AND occurrence = ? ORDER BY partition_no
+     * Used in: BatchJobRunner (resume and report)
+     */
+    List<BatchPartitionEntity> findByJobNameAndOccurrenceOrderByPartitionNo(String jobName, String occurrence);
+
+    /**
+     * CLAIM A PARTITION FOR THIS WORKER
+     * Pending and failed partitions can be claimed, and running ones whose owner's lease ran out
+     * Used in: BatchJobRunner
+     */
+    @Modifying
+    @Query("UPDATE BatchPartitionEntity p SET p.status = 'RUNNING', p.owner = :owner, p.leaseUntil = :leaseUntil, " +
+            "p.startedAt = COALESCE(p.startedAt, :now), p.lastError = null " +
+            "WHERE p.id = :id AND (p.status IN ('PENDING', 'FAILED') OR (p.status = 'RUNNING' AND p.leaseUntil < :now))")
+    int claim(@Param("id") Long id,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * SAVE CHUNK PROGRESS - runs in the chunk's own transaction
+     * Returns 0 when the worker no longer owns the partition, so the chunk must roll back
+     * Used in: BatchJobRunner
+     */
+    @Modifying
+    @Query("UPDATE BatchPartitionEntity p SET p.lastProcessedId = :lastId, p.itemsProcessed = p.itemsProcessed + :items, " +
+            "p.leaseUntil = :leaseUntil WHERE p.id = :id AND p.owner = :owner AND p.status = 'RUNNING'")
+    int checkpoint(@Param("id") Long id,
+                   @Param("owner") String owner,
+                   @Param("lastId") Long lastId,
+                   @Param("items") long items,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * FINISH A PARTITION (DONE or FAILED)
+     * Used in: BatchJobRunner
+     */
+    @Modifying
+    @Query("UPDATE BatchPartitionEntity p SET p.status = :status, p.finishedAt = :now, p.durationMs = :durationMs, " +
+            "p.lastError = :error, p.leaseUntil = null WHERE p.id = :id AND p.owner = :owner")
+    int finish(@Param("id") Long id,
+               @Param("owner") String owner,
+               @Param("status") String status,
+               @Param("now") LocalDateTime now,
+               @Param("durationMs") Long durationMs,
+               @Param("error") String error);
+
+    /**
+     * DELETE FINISHED PARTITIONS OF A JOB
+     * SQL: DELETE FROM tbl_batch_partitions WHERE job_name = ?
+     *      AND ((status IN ('DONE', 'FAILED') AND finished_at < ?) OR (status = 'RUNNING' AND lease_until < ?))
+     * Any terminal status counts, plus RUNNING rows whose worker died and whose lease ran out
+     * before the cutoff - nothing replays a run that old
+     * Used in: NotificationService (one run per slot and minute adds up quickly)
+     */
+    @Modifying
+    @Query("DELETE FROM BatchPartitionEntity p WHERE p.jobName = :jobName " +
+            "AND ((p.status IN ('DONE', 'FAILED') AND p.finishedAt < :before) " +
+            "OR (p.status = 'RUNNING' AND p.leaseUntil < :before))")
+    int deleteFinishedBefore(@Param("jobName") String jobName, @Param("before") LocalDateTime before);
+}
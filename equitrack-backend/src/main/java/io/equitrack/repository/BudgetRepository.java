@@ -1,11 +1,15 @@
 package io.equitrack.repository;
 
+import io.equitrack.dto.BudgetStatusDTO;
 import io.equitrack.entity.BudgetEntity;
 import io.equitrack.entity.CategoryEntity;
 import io.equitrack.entity.ProfileEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +18,34 @@ public interface BudgetRepository extends JpaRepository<BudgetEntity, Long> {
     List<BudgetEntity> findByProfile(ProfileEntity profile);
     List<BudgetEntity> findByProfileAndPeriod(ProfileEntity profile, String period);
     Optional<BudgetEntity> findByProfileAndCategory(ProfileEntity profile, CategoryEntity category);
-}
\ No newline at end of file
+
+    /**
+     * SPENDING PER BUDGET IN ITS CURRENT PERIOD WINDOW - one grouped query for all budgets of a profile
+     *
+     * SQL: SELECT b.id, c.id, c.name, b.period, b.limit_amount, COALESCE(SUM(e.amount), 0)
+     *      FROM tbl_budgets b JOIN tbl_categories c ON c.id = b.category_id
+     *      LEFT JOIN tbl_expenses e ON e.profile_id = b.profile_id AND e.category_id = b.category_id
+     *           AND e.date >= CASE b.period WHEN 'DAILY' THEN ? WHEN 'WEEKLY' THEN ? WHEN 'YEARLY' THEN ? ELSE ? END
+     *           AND e.date <  CASE b.period ... END
+     *      WHERE b.profile_id = ?
+     *      GROUP BY b.id, c.id, c.name, b.period, b.limit_amount
+     *
+     * Window ends are exclusive (the day after the window). Uses idx_expenses_profile_category_date.
+     * Used in: BudgetService.getBudgetStatus
+     */
+    @Query("SELECT new io.equitrack.dto.BudgetStatusDTO(b.id, c.id, c.name, b.period, b.limitAmount, COALESCE(SUM(e.amount), 0)) " +
+            "FROM BudgetEntity b JOIN b.category c " +
+            "LEFT JOIN ExpenseEntity e ON e.profile.id = b.profile.id AND e.category.id = c.id " +
+            "AND e.date >= (CASE b.period WHEN 'DAILY' THEN :dayStart WHEN 'WEEKLY' THEN :weekStart " +
+            "WHEN 'YEARLY' THEN :yearStart ELSE :monthStart END) " +
+            "AND e.date < (CASE b.period WHEN 'DAILY' THEN :dayEnd WHEN 'WEEKLY' THEN :weekEnd " +
+            "WHEN 'YEARLY' THEN :yearEnd ELSE :monthEnd END) " +
+            "WHERE b.profile.id = :profileId " +
+            "GROUP BY b.id, c.id, c.name, b.period, b.limitAmount " +
+            "ORDER BY b.id")
+    List<BudgetStatusDTO> findBudgetStatus(@Param("profileId") Long profileId,
+                                           @Param("dayStart") LocalDate dayStart, @Param("dayEnd") LocalDate dayEnd,
+                                           @Param("weekStart") LocalDate weekStart, @Param("weekEnd") LocalDate weekEnd,
+                                           @Param("monthStart") LocalDate monthStart, @Param("monthEnd") LocalDate monthEnd,
+                                           @Param("yearStart") LocalDate yearStart, @Param("yearEnd") LocalDate yearEnd);
+}
@@ -0,0 +1,78 @@
+package io.equitrack.repository;
+
+import io.equitrack.entity.EmailOutboxEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxEntity, Long> {
+
+    /**
+     * LOCK THE NEXT DELIVERABLE ROWS FOR THIS WORKER
+     *
+     * SQL: SELECT * FROM tbl_email_outbox
+     *      WHERE (status = 'PENDING' AND next_attempt_at <= ?)
+     *         OR (status = 'SENDING' AND claimed_at < ?)
+     *      ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED
+     *
+     * SKIP LOCKED lets several workers (and nodes) claim disjoint rows without blocking each other.
+     * SENDING rows whose claim is older than staleBefore belong to a worker that died mid-send.
+     * Must run inside a transaction - the caller flips the rows to SENDING before committing.
+     * Used in: EmailOutboxWorker
+     */
+    @Query(value = "SELECT * FROM tbl_email_outbox " +
+            "WHERE (status = 'PENDING' AND next_attempt_at <= :now) " +
+            "OR (status = 'SENDING' AND claimed_at < :staleBefore) " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutboxEntity> lockDeliverable(@Param("now") LocalDateTime now,
+                                            @Param("staleBefore") LocalDateTime staleBefore,
+                                            @Param("limit") int limit);
+
+    /**
+     * MARK DELIVERED ROWS AS SENT
+     * Clears the attachment - it is no longer needed once Brevo accepted the email
+     * Used in: EmailOutboxWorker
+     */
+    @Modifying
+    @Query("UPDATE EmailOutboxEntity e SET e.status = 'SENT', e.sentAt = :now, e.attachment = null, e.lastError = null " +
+            "WHERE e.id IN :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * NEXT CHUNK OF FINISHED ROWS PAST THE RETENTION PERIOD
+     *
+     * SQL: SELECT id FROM tbl_email_outbox WHERE status IN ('SENT', 'DEAD') AND created_at < ?
+     *      ORDER BY id LIMIT ?
+     *
+     * Served by idx_email_outbox_status_created; PENDING and SENDING rows are never touched.
+     * Used in: EmailOutboxWorker purge
+     */
+    @Query("SELECT e.id FROM EmailOutboxEntity e WHERE e.status IN ('SENT', 'DEAD') AND e.createdAt < :before " +
+            "ORDER BY e.id")
+    List<Long> findFinishedIdsBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutboxEntity e WHERE e.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * COUNT ROWS WAITING FOR DELIVERY
+     * Used in: EmailOutboxWorker metrics
+     */
+    @Query("SELECT COUNT(e) FROM EmailOutboxEntity e WHERE e.status IN ('PENDING', 'SENDING')")
+    long countUndelivered();
+
+    /**
+     * OLDEST ROW STILL WAITING FOR DELIVERY (drives the lag gauge)
+     * Used in: EmailOutboxWorker metrics
+     */
+    @Query("SELECT MIN(e.createdAt) FROM EmailOutboxEntity e WHERE e.status IN ('PENDING', 'SENDING')")
+    LocalDateTime findOldestUndeliveredCreatedAt();
+}
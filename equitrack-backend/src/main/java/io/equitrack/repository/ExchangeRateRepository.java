@@ -0,0 +1,9 @@
+package io.equitrack.repository;
+
+import io.equitrack.entity.ExchangeRateEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRateEntity, String> {
+}
@@ -1,13 +1,21 @@
 package io.equitrack.repository;
 
+import io.equitrack.dto.DailyExpenseRowDTO;
+import io.equitrack.dto.ExportRowDTO;
+import io.equitrack.dto.IdRangeDTO;
 import io.equitrack.entity.ExpenseEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;          // Sorting and pagination
 import org.springframework.data.jpa.repository.JpaRepository; // Base CRUD operations
 import org.springframework.data.jpa.repository.Query; // Custom SQL queries
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param; // Named parameter binding
 import java.math.BigDecimal;                     // Precise monetary calculations
 import java.time.LocalDate;                      // Date without time
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for ExpenseEntity database operations
@@ -65,4 +73,61 @@ public interface ExpenseRepository extends JpaRepository<ExpenseEntity, Long> {
      */
     List<ExpenseEntity> findByProfileIdAndDate(Long profileId, LocalDate date);
 
+    /**
+     * GET EXPENSE EXPORT ROWS
+     * SQL: SELECT e.name, e.amount, e.date, c.name FROM tbl_expenses e LEFT JOIN tbl_categories c ... ORDER BY date DESC
+     * Used in: Excel exports (projection - no entities or lazy category loads)
+     */
+    @Query("SELECT new io.equitrack.dto.ExportRowDTO(e.name, e.amount, e.date, c.name) " +
+            "FROM ExpenseEntity e LEFT JOIN e.category c WHERE e.profile.id = :profileId ORDER BY e.date DESC")
+    List<ExportRowDTO> findExportRowsByProfileId(@Param("profileId") Long profileId);
+
+    /**
+     * ID RANGE OF USERS IN ONE NOTIFICATION SLOT WITH EXPENSES ON A DAY
+     * SQL: SELECT MIN(p.id), MAX(p.id) FROM tbl_expenses e JOIN tbl_profiles p ON ...
+     *      WHERE e.date = ? AND p.is_active = true AND p.timezone = ? AND p.notify_hour = ? AND p.notify_minute = ?
+     * Used in: NotificationService expense summary dispatch (range of the slot's batch run)
+     */
+    @Query("SELECT new io.equitrack.dto.IdRangeDTO(MIN(p.id), MAX(p.id)) FROM ExpenseEntity e JOIN e.profile p " +
+            "WHERE e.date = :date AND p.isActive = true AND p.timezone = :timezone " +
+            "AND p.notifyHour = :hour AND p.notifyMinute = :minute")
+    IdRangeDTO findIdRangeInSlotWithExpensesOn(@Param("date") LocalDate date,
+                                               @Param("timezone") String timezone,
+                                               @Param("hour") int hour,
+                                               @Param("minute") int minute);
+
+    /**
+     * NEXT CHUNK OF USERS IN ONE NOTIFICATION SLOT WITH EXPENSES ON A DAY
+     * SQL: SELECT DISTINCT p.id FROM tbl_expenses e JOIN tbl_profiles p ON ...
+     *      WHERE e.date = ? AND p.is_active = true AND p.timezone = ? AND p.notify_hour = ? AND p.notify_minute = ?
+     *      AND p.id > ? AND p.id <= ? ORDER BY p.id LIMIT ?
+     * Used in: NotificationService expense summary dispatch (keyset over profile ids)
+     */
+    @Query("SELECT DISTINCT p.id FROM ExpenseEntity e JOIN e.profile p " +
+            "WHERE e.date = :date AND p.isActive = true AND p.timezone = :timezone " +
+            "AND p.notifyHour = :hour AND p.notifyMinute = :minute AND p.id > :afterId AND p.id <= :upToId ORDER BY p.id")
+    List<Long> findProfileIdsInSlotWithExpensesOn(@Param("date") LocalDate date,
+                                                  @Param("timezone") String timezone,
+                                                  @Param("hour") int hour,
+                                                  @Param("minute") int minute,
+                                                  @Param("afterId") Long afterId,
+                                                  @Param("upToId") Long upToId,
+                                                  Pageable pageable);
+
+    /**
+     * ONE DAY'S EXPENSES FOR A SET OF USERS, WITH OWNER AND CATEGORY
+     * SQL: SELECT p.id, p.email, p.full_name, e.name, e.amount, c.name FROM tbl_expenses e
+     *      JOIN tbl_profiles p ON ... LEFT JOIN tbl_categories c ON ...
+     *      WHERE e.date = ? AND p.id IN (...) ORDER BY p.id, e.id
+     * One query per chunk of users instead of one per user; rows are grouped by profile.
+     * Rows are fetched from a server-side cursor 500 at a time (MySQL needs useCursorFetch=true
+     * on the URL), so must be consumed inside a transaction and closed (try-with-resources).
+     * Used in: NotificationService daily expense summary
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new io.equitrack.dto.DailyExpenseRowDTO(p.id, p.email, p.fullName, e.name, e.amount, c.name) " +
+            "FROM ExpenseEntity e JOIN e.profile p LEFT JOIN e.category c " +
+            "WHERE e.date = :date AND p.id IN :profileIds ORDER BY p.id, e.id")
+    Stream<DailyExpenseRowDTO> streamDailyExpenseRowsForProfiles(@Param("date") LocalDate date,
+                                                                 @Param("profileIds") List<Long> profileIds);
 }
\ No newline at end of file
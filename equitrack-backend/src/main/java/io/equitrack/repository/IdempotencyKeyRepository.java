@@ -0,0 +1,83 @@
+package io.equitrack.repository;
+
+import io.equitrack.entity.IdempotencyKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+
+    /**
+     * RESERVE A KEY
+     * Plain INSERT (not a merge) so the second of two concurrent requests with the same key
+     * fails with a duplicate key instead of running the mutation again
+     * Used in: IdempotencyService
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tbl_idempotency_keys (idempotency_key, operation, request_hash, status, owner_token, created_at, expires_at) " +
+            "VALUES (:key, :operation, :requestHash, :status, :ownerToken, :now, :expiresAt)", nativeQuery = true)
+    int reserve(@Param("key") String key,
+                @Param("operation") String operation,
+                @Param("requestHash") String requestHash,
+                @Param("status") String status,
+                @Param("ownerToken") String ownerToken,
+                @Param("now") LocalDateTime now,
+                @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * TAKE OVER A STALE RESERVATION
+     * The owner died (crash, lost connection) before committing, so nothing it did is in the
+     * database; a retry of the same request may claim the key with a new owner token.
+     * Only one of several concurrent retries matches the old created_at and wins.
+     * Used in: IdempotencyService
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyKeyEntity k SET k.ownerToken = :ownerToken, k.createdAt = :now " +
+            "WHERE k.idempotencyKey = :key AND k.status = 'IN_PROGRESS' " +
+            "AND k.requestHash = :requestHash AND k.createdAt < :staleBefore")
+    int takeOver(@Param("key") String key,
+                 @Param("requestHash") String requestHash,
+                 @Param("ownerToken") String ownerToken,
+                 @Param("now") LocalDateTime now,
+                 @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * STORE THE RESPONSE FOR A RESERVED KEY
+     * Runs in the mutation's transaction; 0 rows means another request took the key over
+     * Used in: IdempotencyService
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyKeyEntity k SET k.status = :status, k.responseStatus = :responseStatus, " +
+            "k.responseContentType = :contentType, k.responseBody = :body " +
+            "WHERE k.idempotencyKey = :key AND k.ownerToken = :ownerToken AND k.status = 'IN_PROGRESS'")
+    int complete(@Param("key") String key,
+                 @Param("ownerToken") String ownerToken,
+                 @Param("status") String status,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("contentType") String contentType,
+                 @Param("body") String body);
+
+    /**
+     * RELEASE A RESERVATION THAT FAILED
+     * SQL: DELETE FROM tbl_idempotency_keys WHERE idempotency_key = ? AND owner_token = ? AND status = 'IN_PROGRESS'
+     * Used in: IdempotencyService
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.idempotencyKey = :key " +
+            "AND k.ownerToken = :ownerToken AND k.status = 'IN_PROGRESS'")
+    int release(@Param("key") String key, @Param("ownerToken") String ownerToken);
+
+    /**
+     * DELETE EXPIRED KEYS
+     * SQL: DELETE FROM tbl_idempotency_keys WHERE expires_at < ?
+     * Used in: IdempotencyService sweep
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyKeyEntity k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
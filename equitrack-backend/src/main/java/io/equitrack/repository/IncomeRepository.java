@@ -1,5 +1,6 @@
 package io.equitrack.repository;
 
+import io.equitrack.dto.ExportRowDTO;
 import io.equitrack.entity.IncomeEntity;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -58,4 +59,13 @@ public interface IncomeRepository extends JpaRepository<IncomeEntity, Long> {
      * Used in: Monthly reports, period analysis
      */
     List<IncomeEntity> findByProfileIdAndDateBetween(Long profileId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * GET INCOME EXPORT ROWS / Kuhaa ang income rows para sa Excel export
+     * SQL: SELECT i.name, i.amount, i.date, c.name FROM tbl_incomes i LEFT JOIN tbl_categories c ... ORDER BY date DESC
+     * Used in: Excel exports (projection - no entities or lazy category loads)
+     */
+    @Query("SELECT new io.equitrack.dto.ExportRowDTO(i.name, i.amount, i.date, c.name) " +
+            "FROM IncomeEntity i LEFT JOIN i.category c WHERE i.profile.id = :profileId ORDER BY i.date DESC")
+    List<ExportRowDTO> findExportRowsByProfileId(@Param("profileId") Long profileId);
 }
\ No newline at end of file
@@ -0,0 +1,108 @@
+package io.equitrack.repository;
+
+import io.equitrack.entity.JobLockEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface JobLockRepository extends JpaRepository<JobLockEntity, String> {
+
+    /**
+     * CREATE THE IDLE LOCK ROW FOR A NEW JOB
+     * Plain INSERT (not a merge) so a concurrent creator fails with a duplicate key
+     * instead of overwriting a lock that was just taken
+     * Used in: JobLockService
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tbl_job_locks (job_name, occurrence, status, lease_until) " +
+            "VALUES (:jobName, :occurrence, :status, :leaseUntil)", nativeQuery = true)
+    int insertIdle(@Param("jobName") String jobName,
+                   @Param("occurrence") String occurrence,
+                   @Param("status") String status,
+                   @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * TRY TO TAKE THE LOCK FOR ONE OCCURRENCE
+     *
+     * SQL: UPDATE tbl_job_locks SET attempts = CASE WHEN occurrence = ? THEN COALESCE(attempts, 0) + 1 ELSE 1 END,
+     *             owner = ?, occurrence = ?, status = 'RUNNING', lease_until = ?, heartbeat_at = ?
+     *      WHERE job_name = ? AND (
+     *            (occurrence <> ? AND (status <> 'RUNNING' OR lease_until < ?))   -- new occurrence, previous one over
+     *         OR (occurrence = ? AND status = 'RUNNING' AND lease_until < ?)      -- holder of this occurrence died
+     *         OR (occurrence = ? AND status = 'FAILED' AND attempts < ?))        -- failed run, retries left
+     *
+     * A single conditional UPDATE, so two nodes racing for the same occurrence cannot both win.
+     * attempts is assigned first because MySQL evaluates SET left to right with the new values.
+     * A DONE occurrence is never picked up again.
+     * Used in: JobLockService
+     */
+    @Modifying
+    @Query("UPDATE JobLockEntity l SET " +
+            "l.attempts = CASE WHEN l.occurrence = :occurrence THEN COALESCE(l.attempts, 0) + 1 ELSE 1 END, " +
+            "l.owner = :owner, l.occurrence = :occurrence, l.status = 'RUNNING', " +
+            "l.leaseUntil = :leaseUntil, l.heartbeatAt = :now " +
+            "WHERE l.jobName = :jobName AND (" +
+            "(l.occurrence <> :occurrence AND (l.status <> 'RUNNING' OR l.leaseUntil < :now)) " +
+            "OR (l.occurrence = :occurrence AND l.status = 'RUNNING' AND l.leaseUntil < :now) " +
+            "OR (l.occurrence = :occurrence AND l.status = 'FAILED' AND COALESCE(l.attempts, 0) < :maxAttempts))")
+    int tryAcquire(@Param("jobName") String jobName,
+                   @Param("occurrence") String occurrence,
+                   @Param("owner") String owner,
+                   @Param("now") LocalDateTime now,
+                   @Param("leaseUntil") LocalDateTime leaseUntil,
+                   @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * RETRY A FAILED OCCURRENCE
+     * SQL: UPDATE tbl_job_locks SET attempts = attempts + 1, owner = ?, status = 'RUNNING', lease_until = ?, heartbeat_at = ?
+     *      WHERE job_name = ? AND occurrence = ? AND status = 'FAILED' AND attempts < ?
+     * Unlike tryAcquire it never moves the row to another occurrence, so a late retry cannot
+     * run an old occurrence after a newer one has started
+     * Used in: JobLockService retry
+     */
+    @Modifying
+    @Query("UPDATE JobLockEntity l SET l.attempts = COALESCE(l.attempts, 0) + 1, l.owner = :owner, l.status = 'RUNNING', " +
+            "l.leaseUntil = :leaseUntil, l.heartbeatAt = :now " +
+            "WHERE l.jobName = :jobName AND l.occurrence = :occurrence AND l.status = 'FAILED' " +
+            "AND COALESCE(l.attempts, 0) < :maxAttempts")
+    int tryResume(@Param("jobName") String jobName,
+                  @Param("occurrence") String occurrence,
+                  @Param("owner") String owner,
+                  @Param("now") LocalDateTime now,
+                  @Param("leaseUntil") LocalDateTime leaseUntil,
+                  @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * EXTEND THE LEASE WHILE THE JOB IS RUNNING
+     * Returns 0 when this node no longer owns the lock
+     * Used in: JobLockService heartbeat
+     */
+    @Modifying
+    @Query("UPDATE JobLockEntity l SET l.leaseUntil = :leaseUntil, l.heartbeatAt = :now " +
+            "WHERE l.jobName = :jobName AND l.occurrence = :occurrence AND l.owner = :owner AND l.status = 'RUNNING'")
+    int heartbeat(@Param("jobName") String jobName,
+                  @Param("occurrence") String occurrence,
+                  @Param("owner") String owner,
+                  @Param("now") LocalDateTime now,
+                  @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * RELEASE THE LOCK WITH A FINAL STATUS (DONE or FAILED)
+     * DONE also records the occurrence as last_completed
+     * Used in: JobLockService
+     */
+    @Modifying
+    @Query("UPDATE JobLockEntity l SET l.status = :status, l.leaseUntil = :now, l.heartbeatAt = :now, " +
+            "l.lastCompleted = CASE WHEN :status = 'DONE' THEN l.occurrence ELSE l.lastCompleted END " +
+            "WHERE l.jobName = :jobName AND l.occurrence = :occurrence AND l.owner = :owner AND l.status = 'RUNNING'")
+    int release(@Param("jobName") String jobName,
+                @Param("occurrence") String occurrence,
+                @Param("owner") String owner,
+                @Param("status") String status,
+                @Param("now") LocalDateTime now);
+}
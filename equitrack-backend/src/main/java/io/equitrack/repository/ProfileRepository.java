@@ -1,7 +1,14 @@
 package io.equitrack.repository;
 
+import io.equitrack.dto.IdRangeDTO;
+import io.equitrack.dto.ProfileSummaryDTO;
 import io.equitrack.entity.ProfileEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository; // Base CRUD operations
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
 import java.util.Optional;                                   // Safe null handling
 
 /**
@@ -24,4 +31,120 @@ public interface ProfileRepository extends JpaRepository<ProfileEntity, Long> {
      * Used in: Account activation process, email verification links
      */
     Optional<ProfileEntity> findByActivationToken(String activationToken);
+
+    /**
+     * GET INCOME DATA VERSION / Kuhaa ang version sa income data sa user
+     * SQL: SELECT COALESCE(income_data_version, 0) FROM tbl_profiles WHERE id = ?
+     * Used in: Excel export cache key
+     */
+    @Query("SELECT COALESCE(p.incomeDataVersion, 0) FROM ProfileEntity p WHERE p.id = :profileId")
+    Long findIncomeDataVersion(@Param("profileId") Long profileId);
+
+    /**
+     * GET EXPENSE DATA VERSION / Kuhaa ang version sa expense data sa user
+     * SQL: SELECT COALESCE(expense_data_version, 0) FROM tbl_profiles WHERE id = ?
+     * Used in: Excel export cache key
+     */
+    @Query("SELECT COALESCE(p.expenseDataVersion, 0) FROM ProfileEntity p WHERE p.id = :profileId")
+    Long findExpenseDataVersion(@Param("profileId") Long profileId);
+
+    /**
+     * BUMP INCOME DATA VERSION / I-increment ang income data version
+     * SQL: UPDATE tbl_profiles SET income_data_version = COALESCE(income_data_version, 0) + 1 WHERE id = ?
+     * Used in: Income write paths, to invalidate cached income exports
+     */
+    @Modifying
+    @Query("UPDATE ProfileEntity p SET p.incomeDataVersion = COALESCE(p.incomeDataVersion, 0) + 1 WHERE p.id = :profileId")
+    int incrementIncomeDataVersion(@Param("profileId") Long profileId);
+
+    /**
+     * BUMP EXPENSE DATA VERSION / I-increment ang expense data version
+     * SQL: UPDATE tbl_profiles SET expense_data_version = COALESCE(expense_data_version, 0) + 1 WHERE id = ?
+     * Used in: Expense write paths, to invalidate cached expense exports
+     */
+    @Modifying
+    @Query("UPDATE ProfileEntity p SET p.expenseDataVersion = COALESCE(p.expenseDataVersion, 0) + 1 WHERE p.id = :profileId")
+    int incrementExpenseDataVersion(@Param("profileId") Long profileId);
+
+    /**
+     * BUMP WALLET DATA VERSION / I-increment ang wallet data version
+     * SQL: UPDATE tbl_profiles SET wallet_data_version = COALESCE(wallet_data_version, 0) + 1 WHERE id = ?
+     * Used in: Wallet write paths, to invalidate cached statement exports
+     */
+    @Modifying
+    @Query("UPDATE ProfileEntity p SET p.walletDataVersion = COALESCE(p.walletDataVersion, 0) + 1 WHERE p.id = :profileId")
+    int incrementWalletDataVersion(@Param("profileId") Long profileId);
+
+    /**
+     * BUMP WALLET DATA VERSION BY WALLET / I-increment ang wallet data version gamit ang wallet
+     * SQL: UPDATE tbl_profiles SET wallet_data_version = COALESCE(wallet_data_version, 0) + 1
+     *      WHERE id = (SELECT profile_id FROM tbl_wallets WHERE id = ?)
+     * Used in: Deposit/withdraw, which never load the wallet entity
+     */
+    @Modifying
+    @Query("UPDATE ProfileEntity p SET p.walletDataVersion = COALESCE(p.walletDataVersion, 0) + 1 " +
+            "WHERE p.id = (SELECT w.profile.id FROM WalletEntity w WHERE w.id = :walletId)")
+    int incrementWalletDataVersionForWallet(@Param("walletId") Long walletId);
+
+    /**
+     * GET COMBINED DATA VERSION / Kuhaa ang combined version sa tanan data sa user
+     * SQL: SELECT CONCAT('i', income_data_version, '-e', expense_data_version, '-w', wallet_data_version) FROM tbl_profiles WHERE id = ?
+     * Used in: Full statement export cache key (changes when any of its sheets change)
+     */
+    @Query("SELECT CONCAT('i', CAST(COALESCE(p.incomeDataVersion, 0) AS string), " +
+            "'-e', CAST(COALESCE(p.expenseDataVersion, 0) AS string), " +
+            "'-w', CAST(COALESCE(p.walletDataVersion, 0) AS string)) " +
+            "FROM ProfileEntity p WHERE p.id = :profileId")
+    String findStatementDataVersion(@Param("profileId") Long profileId);
+
+    /**
+     * ID RANGE OF ACTIVE USERS IN ONE NOTIFICATION SLOT / Gikan ug hangtod nga id sa mga active users sa usa ka slot
+     * SQL: SELECT MIN(id), MAX(id) FROM tbl_profiles
+     *      WHERE is_active = true AND timezone = ? AND notify_hour = ? AND notify_minute = ?
+     * Used in: NotificationService reminder dispatch (range of the slot's batch run)
+     */
+    @Query("SELECT new io.equitrack.dto.IdRangeDTO(MIN(p.id), MAX(p.id)) FROM ProfileEntity p " +
+            "WHERE p.isActive = true AND p.timezone = :timezone AND p.notifyHour = :hour AND p.notifyMinute = :minute")
+    IdRangeDTO findIdRangeInSlot(@Param("timezone") String timezone,
+                                 @Param("hour") int hour,
+                                 @Param("minute") int minute);
+
+    /**
+     * NEXT CHUNK OF ACTIVE USERS IN ONE NOTIFICATION SLOT / Kuhaa ang mga active users nga naa sa usa ka notification slot
+     * SQL: SELECT id, email, full_name FROM tbl_profiles
+     *      WHERE is_active = true AND timezone = ? AND notify_hour = ? AND notify_minute = ? AND id > ? AND id <= ?
+     *      ORDER BY id LIMIT ?
+     * Keyset pagination over the (timezone, notify_hour, notify_minute, id) index
+     * Used in: NotificationService reminder dispatch
+     */
+    @Query("SELECT new io.equitrack.dto.ProfileSummaryDTO(p.id, p.email, p.fullName) FROM ProfileEntity p " +
+            "WHERE p.isActive = true AND p.timezone = :timezone AND p.notifyHour = :hour AND p.notifyMinute = :minute " +
+            "AND p.id > :afterId AND p.id <= :upToId ORDER BY p.id")
+    List<ProfileSummaryDTO> findActiveInSlot(@Param("timezone") String timezone,
+                                             @Param("hour") int hour,
+                                             @Param("minute") int minute,
+                                             @Param("afterId") Long afterId,
+                                             @Param("upToId") Long upToId,
+                                             Pageable pageable);
+
+    /**
+     * TIMEZONES OF ACTIVE USERS / Kuhaa ang mga timezone sa active users
+     * SQL: SELECT DISTINCT timezone FROM tbl_profiles WHERE is_active = true AND timezone IS NOT NULL
+     * Used in: NotificationService dispatcher (which local times to evaluate each minute)
+     */
+    @Query("SELECT DISTINCT p.timezone FROM ProfileEntity p WHERE p.isActive = true AND p.timezone IS NOT NULL")
+    List<String> findActiveTimezones();
+
+    /**
+     * FILL IN NOTIFICATION SCHEDULE FOR OLDER ACCOUNTS / I-set ang default schedule sa mga daan nga accounts
+     * SQL: UPDATE tbl_profiles SET timezone = COALESCE(timezone, ?), notify_hour = COALESCE(notify_hour, ?),
+     *      notify_minute = COALESCE(notify_minute, MOD(id, 60)) WHERE ... IS NULL
+     * Spreads existing users over the hour by id; new users get a random minute on insert
+     * Used in: NotificationService startup
+     */
+    @Modifying
+    @Query("UPDATE ProfileEntity p SET p.timezone = COALESCE(p.timezone, :timezone), " +
+            "p.notifyHour = COALESCE(p.notifyHour, :hour), p.notifyMinute = COALESCE(p.notifyMinute, MOD(p.id, 60)) " +
+            "WHERE p.timezone IS NULL OR p.notifyHour IS NULL OR p.notifyMinute IS NULL")
+    int backfillNotificationSchedule(@Param("timezone") String timezone, @Param("hour") int hour);
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package io.equitrack.repository;
+
+import io.equitrack.dto.CurrencyTotalDTO;
+import io.equitrack.dto.WalletActivityDTO;
+import io.equitrack.entity.WalletActivityArchiveEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface WalletActivityArchiveRepository extends JpaRepository<WalletActivityArchiveEntity, Long> {
+
+    /**
+     * COPY ONE CHUNK FROM THE HOT TABLE
+     * SQL: INSERT INTO tbl_wallet_activities_archive (...) SELECT ... FROM tbl_wallet_activities WHERE id IN (...)
+     * Used in: WalletArchiveService, followed by the delete from the hot table in the same transaction
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tbl_wallet_activities_archive " +
+            "(id, wallet_id, profile_id, amount, activity_type, related_wallet_id, sequence_no, created_at, archived_at) " +
+            "SELECT id, wallet_id, profile_id, amount, activity_type, related_wallet_id, sequence_no, created_at, :now " +
+            "FROM tbl_wallet_activities WHERE id IN (:ids)", nativeQuery = true)
+    int copyFromHot(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Archived part of the ledger entries (afterSeq, toSeq] of a wallet
+     */
+    @Query("SELECT COALESCE(SUM(a.amount), 0) FROM WalletActivityArchiveEntity a " +
+            "WHERE a.walletId = :walletId AND a.sequenceNo > :afterSeq AND a.sequenceNo <= :toSeq")
+    BigDecimal sumLedgerRange(@Param("walletId") Long walletId,
+                              @Param("afterSeq") Long afterSeq,
+                              @Param("toSeq") Long toSeq);
+
+    /**
+     * Latest archived ledger position of a wallet at a point in time
+     */
+    @Query("SELECT MAX(a.sequenceNo) FROM WalletActivityArchiveEntity a WHERE a.walletId = :walletId AND a.createdAt <= :asOf")
+    Long findLastSequenceAt(@Param("walletId") Long walletId, @Param("asOf") LocalDateTime asOf);
+
+    /**
+     * Archived activities of a profile as flat rows, newest first (full statement export)
+     */
+    @Query("SELECT new io.equitrack.dto.WalletActivityDTO(a.id, w.id, w.walletType, a.amount, a.type, a.relatedWalletId, a.createdAt) " +
+            "FROM WalletActivityArchiveEntity a JOIN WalletEntity w ON w.id = a.walletId " +
+            "WHERE a.profileId = :profileId ORDER BY a.createdAt DESC, a.id DESC")
+    List<WalletActivityDTO> findActivityRowsByProfileId(@Param("profileId") Long profileId);
+
+    /**
+     * Next chunk of archived activity ids of a wallet being deleted
+     */
+    @Query("SELECT a.id FROM WalletActivityArchiveEntity a WHERE a.walletId = :walletId ORDER BY a.id")
+    List<Long> findIdsByWalletId(@Param("walletId") Long walletId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM WalletActivityArchiveEntity a WHERE a.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * Net archived change of a profile's wallets from a point in time on, per wallet currency
+     * (opening balance of a range)
+     */
+    @Query("SELECT new io.equitrack.dto.CurrencyTotalDTO(w.currency, SUM(a.amount)) " +
+            "FROM WalletActivityArchiveEntity a JOIN WalletEntity w ON w.id = a.walletId " +
+            "WHERE a.profileId = :profileId AND a.createdAt >= :at GROUP BY w.currency")
+    List<CurrencyTotalDTO> sumProfileChangesSinceByCurrency(@Param("profileId") Long profileId, @Param("at") LocalDateTime at);
+
+    /**
+     * Latest ledger position of a wallet strictly before a point in time (opening balance of a range)
+     */
+    @Query("SELECT MAX(a.sequenceNo) FROM WalletActivityArchiveEntity a WHERE a.walletId = :walletId AND a.createdAt < :at")
+    Long findLastSequenceBefore(@Param("walletId") Long walletId, @Param("at") LocalDateTime at);
+}
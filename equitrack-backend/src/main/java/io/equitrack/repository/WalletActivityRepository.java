@@ -1,20 +1,98 @@
 package io.equitrack.repository;
 
+import io.equitrack.dto.WalletActivityDTO;
 import io.equitrack.entity.WalletActivityEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface WalletActivityRepository extends JpaRepository<WalletActivityEntity, Long> {
+public interface WalletActivityRepository extends JpaRepository<WalletActivityEntity, Long>, WalletActivityRepositoryCustom {
 
     /**
-     * MODIFIED: Uses JOIN FETCH to ensure the 'wallet' object and its nested
-     * 'walletType' are loaded eagerly along with the activity, resolving the
-     * "Unknown Wallet" serialization error on the frontend.
+     * Flat projection of every activity for a profile, newest first.
+     * Used by the full statement export - no entity graph is materialized.
      */
-    @Query("SELECT wa FROM WalletActivityEntity wa JOIN FETCH wa.wallet w WHERE wa.profile.id = :profileId ORDER BY wa.createdAt DESC")
-    List<WalletActivityEntity> findByProfileIdOrderByCreatedAtDesc(Long profileId);
-}
\ No newline at end of file
+    @Query("SELECT new io.equitrack.dto.WalletActivityDTO(wa.id, w.id, w.walletType, wa.amount, wa.type, wa.relatedWalletId, wa.createdAt) " +
+            "FROM WalletActivityEntity wa JOIN wa.wallet w WHERE wa.profile.id = :profileId ORDER BY wa.createdAt DESC, wa.id DESC")
+    List<WalletActivityDTO> findActivityRowsByProfileId(@Param("profileId") Long profileId);
+
+    /**
+     * Appends a ledger entry for a wallet without loading it - the owner's profile id and the
+     * sequence number just taken by the balance UPDATE are copied from the wallet row in the same
+     * statement. Runs in the caller's balance-update transaction, which holds the wallet row lock.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tbl_wallet_activities (wallet_id, profile_id, amount, activity_type, related_wallet_id, sequence_no, created_at) " +
+            "SELECT w.id, w.profile_id, :amount, :type, :relatedWalletId, w.ledger_seq, :now FROM tbl_wallets w WHERE w.id = :walletId",
+            nativeQuery = true)
+    int insertForWallet(@Param("walletId") Long walletId,
+                        @Param("amount") BigDecimal amount,
+                        @Param("type") String type,
+                        @Param("relatedWalletId") Long relatedWalletId,
+                        @Param("now") LocalDateTime now);
+
+    /**
+     * Sum of the ledger entries (afterSeq, toSeq] of a wallet - the tail after a snapshot
+     */
+    @Query("SELECT COALESCE(SUM(wa.amount), 0) FROM WalletActivityEntity wa " +
+            "WHERE wa.wallet.id = :walletId AND wa.sequenceNo > :afterSeq AND wa.sequenceNo <= :toSeq")
+    BigDecimal sumLedgerRange(@Param("walletId") Long walletId,
+                              @Param("afterSeq") Long afterSeq,
+                              @Param("toSeq") Long toSeq);
+
+    /**
+     * Latest ledger position of a wallet at a point in time (null if it had no entries yet)
+     */
+    @Query("SELECT MAX(wa.sequenceNo) FROM WalletActivityEntity wa WHERE wa.wallet.id = :walletId AND wa.createdAt <= :asOf")
+    Long findLastSequenceAt(@Param("walletId") Long walletId, @Param("asOf") LocalDateTime asOf);
+
+    /**
+     * Entries of a pre-ledger wallet that still need sequence numbers, in the order they happened
+     */
+    @Query("SELECT wa.id FROM WalletActivityEntity wa WHERE wa.wallet.id = :walletId AND wa.sequenceNo IS NULL " +
+            "ORDER BY wa.createdAt, wa.id")
+    List<Long> findUnsequencedIds(@Param("walletId") Long walletId);
+
+    @Modifying
+    @Query("UPDATE WalletActivityEntity wa SET wa.sequenceNo = :sequenceNo WHERE wa.id = :id")
+    int setSequenceNo(@Param("id") Long id, @Param("sequenceNo") Long sequenceNo);
+
+    /**
+     * Next chunk of activity ids of a wallet being deleted
+     */
+    @Query("SELECT wa.id FROM WalletActivityEntity wa WHERE wa.wallet.id = :walletId ORDER BY wa.id")
+    List<Long> findIdsByWalletId(@Param("walletId") Long walletId, Pageable pageable);
+
+    /**
+     * Bulk delete of one chunk - a single statement, no entities loaded
+     */
+    @Modifying
+    @Query("DELETE FROM WalletActivityEntity wa WHERE wa.id IN :ids")
+    int deleteByIdIn(@Param("ids") List<Long> ids);
+
+    /**
+     * Next chunk of activities old enough to archive. Only entries already covered by a
+     * snapshot qualify, so a wallet's current balance never needs the archive.
+     * Used in: WalletArchiveService
+     */
+    @Query("SELECT wa.id FROM WalletActivityEntity wa WHERE wa.createdAt < :cutoff AND wa.id > :afterId " +
+            "AND wa.sequenceNo <= (SELECT MAX(s.sequenceNo) FROM WalletSnapshotEntity s WHERE s.walletId = wa.wallet.id) " +
+            "ORDER BY wa.id")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    /**
+     * Latest ledger position of a wallet strictly before a point in time (opening balance of a range)
+     */
+    @Query("SELECT MAX(wa.sequenceNo) FROM WalletActivityEntity wa WHERE wa.wallet.id = :walletId AND wa.createdAt < :at")
+    Long findLastSequenceBefore(@Param("walletId") Long walletId, @Param("at") LocalDateTime at);
+}
@@ -0,0 +1,63 @@
+package io.equitrack.repository;
+
+import io.equitrack.dto.BalanceHistoryPointDTO;
+import io.equitrack.dto.WalletActivityDTO;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Activity history queries whose WHERE clause depends on which filters are set, and the JDBC
+ * batch insert used by multi-entry ledger writes
+ */
+public interface WalletActivityRepositoryCustom {
+
+    /**
+     * One ledger entry to append; the caller holds the wallet's row lock and has taken sequenceNo
+     */
+    record LedgerEntry(Long walletId, Long profileId, BigDecimal amount, String type,
+                       Long relatedWalletId, long sequenceNo, LocalDateTime createdAt) {}
+
+    /**
+     * Appends many ledger entries with one JDBC batch (one round trip instead of one INSERT each)
+     */
+    void insertLedgerEntries(List<LedgerEntry> entries);
+
+    /**
+     * One page of a profile's activities, newest first, as flat DTOs
+     *
+     * @param profileId  - Owner of the activities
+     * @param walletId   - Only this wallet (null = all wallets)
+     * @param type       - Only this activity type (null = all types)
+     * @param from       - createdAt >= from (null = no lower bound)
+     * @param to         - createdAt < to (null = no upper bound)
+     * @param afterAt    - Keyset cursor: createdAt of the last row of the previous page (null = first page)
+     * @param afterId    - Keyset cursor: id of the last row of the previous page
+     * @param limit      - Maximum rows returned
+     */
+    List<WalletActivityDTO> findActivityPage(Long profileId, Long walletId, String type,
+                                             LocalDateTime from, LocalDateTime to,
+                                             LocalDateTime afterAt, Long afterId, int limit);
+
+    /**
+     * Same page query against tbl_wallet_activities_archive
+     */
+    List<WalletActivityDTO> findArchivedActivityPage(Long profileId, Long walletId, String type,
+                                                     LocalDateTime from, LocalDateTime to,
+                                                     LocalDateTime afterAt, Long afterId, int limit);
+
+    /**
+     * Net change and running total per time bucket, computed by the database
+     * (GROUP BY the truncated timestamp + SUM(...) OVER (ORDER BY bucket))
+     *
+     * @param archived  - Read tbl_wallet_activities_archive instead of the hot table
+     * @param walletId  - One wallet, or null to combine all wallets of profileId
+     * @param profileId - Used when walletId is null
+     * @param currency  - With profileId: only that profile's wallets in this currency (null = all)
+     * @param unit      - HQL trunc unit: hour, day, month or year
+     * @return buckets with activity only, oldest first; balance holds the running sum since from
+     */
+    List<BalanceHistoryPointDTO> findBalanceBuckets(boolean archived, Long walletId, Long profileId, String currency,
+                                                    String unit, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,164 @@
+package io.equitrack.repository;
+
+import io.equitrack.dto.BalanceHistoryPointDTO;
+import io.equitrack.dto.WalletActivityDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+
+/**
+ * Builds the activity page query with only the filters that are set, so the database can use
+ * idx_wallet_activities_profile_created or idx_wallet_activities_wallet_created for both the
+ * filter and the (created_at, id) ordering, instead of "(:x IS NULL OR ...)" conditions
+ *
+ * SQL (all filters set):
+ * SELECT ... FROM tbl_wallet_activities wa JOIN tbl_wallets w ON w.id = wa.wallet_id
+ * WHERE wa.profile_id = ? AND wa.wallet_id = ? AND wa.activity_type = ?
+ *   AND wa.created_at >= ? AND wa.created_at < ?
+ *   AND (wa.created_at < ? OR (wa.created_at = ? AND wa.id < ?))
+ * ORDER BY wa.created_at DESC, wa.id DESC LIMIT ?
+ *
+ * The archived variant runs the same query against tbl_wallet_activities_archive.
+ */
+public class WalletActivityRepositoryImpl implements WalletActivityRepositoryCustom {
+
+    // Units Hibernate can truncate on every supported dialect (date_trunc on PostgreSQL, date_format on MySQL)
+    private static final Set<String> TRUNC_UNITS = Set.of("hour", "day", "month", "year");
+
+    private static final String INSERT_LEDGER_ENTRY =
+            "INSERT INTO tbl_wallet_activities (wallet_id, profile_id, amount, activity_type, related_wallet_id, sequence_no, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Joins the JPA transaction (same connection), so the batch commits with the balance updates
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertLedgerEntries(List<LedgerEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_LEDGER_ENTRY, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                LedgerEntry entry = entries.get(i);
+                ps.setLong(1, entry.walletId());
+                ps.setLong(2, entry.profileId());
+                ps.setBigDecimal(3, entry.amount());
+                ps.setString(4, entry.type());
+                if (entry.relatedWalletId() != null) {
+                    ps.setLong(5, entry.relatedWalletId());
+                } else {
+                    ps.setNull(5, Types.BIGINT);
+                }
+                ps.setLong(6, entry.sequenceNo());
+                ps.setTimestamp(7, Timestamp.valueOf(entry.createdAt()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+
+    @Override
+    public List<WalletActivityDTO> findActivityPage(Long profileId, Long walletId, String type,
+                                                    LocalDateTime from, LocalDateTime to,
+                                                    LocalDateTime afterAt, Long afterId, int limit) {
+        return findPage("FROM WalletActivityEntity wa JOIN wa.wallet w WHERE wa.profile.id = :profileId",
+                "wa.wallet.id", profileId, walletId, type, from, to, afterAt, afterId, limit);
+    }
+
+    @Override
+    public List<WalletActivityDTO> findArchivedActivityPage(Long profileId, Long walletId, String type,
+                                                            LocalDateTime from, LocalDateTime to,
+                                                            LocalDateTime afterAt, Long afterId, int limit) {
+        return findPage("FROM WalletActivityArchiveEntity wa JOIN WalletEntity w ON w.id = wa.walletId WHERE wa.profileId = :profileId",
+                "wa.walletId", profileId, walletId, type, from, to, afterAt, afterId, limit);
+    }
+
+    private List<WalletActivityDTO> findPage(String fromClause, String walletPath,
+                                             Long profileId, Long walletId, String type,
+                                             LocalDateTime from, LocalDateTime to,
+                                             LocalDateTime afterAt, Long afterId, int limit) {
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new io.equitrack.dto.WalletActivityDTO(wa.id, w.id, w.walletType, wa.amount, wa.type, wa.relatedWalletId, wa.createdAt) ")
+                .append(fromClause);
+        Map<String, Object> params = new HashMap<>();
+        params.put("profileId", profileId);
+
+        if (walletId != null) {
+            jpql.append(" AND ").append(walletPath).append(" = :walletId");
+            params.put("walletId", walletId);
+        }
+        if (type != null) {
+            jpql.append(" AND wa.type = :type");
+            params.put("type", type);
+        }
+        if (from != null) {
+            jpql.append(" AND wa.createdAt >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            jpql.append(" AND wa.createdAt < :to");
+            params.put("to", to);
+        }
+        if (afterAt != null && afterId != null) {
+            jpql.append(" AND (wa.createdAt < :afterAt OR (wa.createdAt = :afterAt AND wa.id < :afterId))");
+            params.put("afterAt", afterAt);
+            params.put("afterId", afterId);
+        }
+        jpql.append(" ORDER BY wa.createdAt DESC, wa.id DESC");
+
+        TypedQuery<WalletActivityDTO> query = entityManager.createQuery(jpql.toString(), WalletActivityDTO.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<BalanceHistoryPointDTO> findBalanceBuckets(boolean archived, Long walletId, Long profileId, String currency,
+                                                           String unit, LocalDateTime from, LocalDateTime to) {
+        if (!TRUNC_UNITS.contains(unit)) {
+            throw new IllegalArgumentException("Unsupported bucket unit: " + unit);
+        }
+        String bucket = "trunc(wa.createdAt, " + unit + ")";
+        String owner = walletId != null
+                ? (archived ? "wa.walletId = :ownerId" : "wa.wallet.id = :ownerId")
+                : (archived ? "wa.profileId = :ownerId" : "wa.profile.id = :ownerId");
+        if (currency != null) {
+            owner += archived ? " AND w.currency = :currency" : " AND wa.wallet.currency = :currency";
+        }
+        String jpql = "SELECT new io.equitrack.dto.BalanceHistoryPointDTO(" + bucket + ", SUM(wa.amount), " +
+                // Buckets don't overlap, so MIN(createdAt) orders them like the bucket itself - and unlike the
+                // repeated trunc() expression it is accepted in the window ORDER BY by every database
+                "SUM(SUM(wa.amount)) OVER (ORDER BY MIN(wa.createdAt))) " +
+                "FROM " + (archived ? "WalletActivityArchiveEntity" : "WalletActivityEntity") + " wa " +
+                (archived && currency != null ? "JOIN WalletEntity w ON w.id = wa.walletId " : "") +
+                "WHERE " + owner + " AND wa.createdAt >= :from AND wa.createdAt < :to " +
+                "GROUP BY " + bucket + " ORDER BY " + bucket;
+
+        TypedQuery<BalanceHistoryPointDTO> query = entityManager.createQuery(jpql, BalanceHistoryPointDTO.class)
+                .setParameter("ownerId", walletId != null ? walletId : profileId)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (currency != null) {
+            query.setParameter("currency", currency);
+        }
+        return query.getResultList();
+    }
+}
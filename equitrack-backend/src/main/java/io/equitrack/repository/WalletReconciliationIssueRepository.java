@@ -0,0 +1,14 @@
+package io.equitrack.repository;
+
+import io.equitrack.entity.WalletReconciliationIssueEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WalletReconciliationIssueRepository extends JpaRepository<WalletReconciliationIssueEntity, Long> {
+
+    // Report of one reconciliation run
+    List<WalletReconciliationIssueEntity> findByOccurrenceOrderByWalletId(String occurrence);
+}
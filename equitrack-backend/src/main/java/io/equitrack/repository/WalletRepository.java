@@ -1,11 +1,20 @@
 package io.equitrack.repository;
 
 
+import io.equitrack.dto.CurrencyTotalDTO;
+import io.equitrack.dto.WalletReconciliationRowDTO;
 import io.equitrack.entity.WalletEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,10 +33,136 @@ public interface WalletRepository extends JpaRepository<WalletEntity, Long> {
     // Check if wallet exists for profile
     boolean existsByProfileId(Long profileId);
 
-    // Get total balance for a profile
-    @Query("SELECT SUM(w.balance) FROM WalletEntity w WHERE w.profile.id = :profileId AND w.isActive = true")
-    java.math.BigDecimal getTotalBalanceByProfileId(Long profileId);
+    // Get total balance for a profile, per currency - converted by CurrencyService, never summed across currencies
+    // SQL: SELECT currency, SUM(balance) FROM tbl_wallets WHERE profile_id = ? AND is_active = true GROUP BY currency
+    @Query("SELECT new io.equitrack.dto.CurrencyTotalDTO(w.currency, SUM(w.balance)) FROM WalletEntity w " +
+            "WHERE w.profile.id = :profileId AND w.isActive = true GROUP BY w.currency")
+    List<CurrencyTotalDTO> getTotalBalancesByCurrency(@Param("profileId") Long profileId);
 
     // Find wallets by currency
     List<WalletEntity> findByCurrency(String currency);
-}
\ No newline at end of file
+
+    /**
+     * BALANCE OF A PROFILE'S WALLETS JUST BEFORE A POINT IN TIME, PER CURRENCY - one statement for all wallets
+     *
+     * SQL: SELECT w.currency, SUM(w.balance) - (SELECT COALESCE(SUM(a.amount), 0) FROM tbl_wallet_activities a
+     *                                           JOIN tbl_wallets aw ON aw.id = a.wallet_id
+     *                                           WHERE a.profile_id = ? AND aw.currency = w.currency AND a.created_at >= ?)
+     *      FROM tbl_wallets w WHERE w.profile_id = ? GROUP BY w.currency
+     *
+     * Walks back from the current balances over the hot activities since that moment (the same
+     * rows a history chart reads anyway, via idx_wallet_activities_profile_created). One statement
+     * reads one consistent state, so a concurrent deposit is either in both parts or in neither.
+     * Never summed across currencies - the caller converts. Archived activities since that moment
+     * are subtracted separately by the caller.
+     * Used in: WalletBalanceHistoryService
+     */
+    @Query("SELECT new io.equitrack.dto.CurrencyTotalDTO(w.currency, SUM(w.balance) - " +
+            "(SELECT COALESCE(SUM(a.amount), 0) FROM WalletActivityEntity a " +
+            "WHERE a.profile.id = :profileId AND a.wallet.currency = w.currency AND a.createdAt >= :at)) " +
+            "FROM WalletEntity w WHERE w.profile.id = :profileId GROUP BY w.currency")
+    List<CurrencyTotalDTO> getBalancesBeforeByCurrency(@Param("profileId") Long profileId, @Param("at") LocalDateTime at);
+
+    // Atomically add to the balance of an active wallet and take the next ledger sequence number
+    // - returns 0 if missing or inactive
+    // SQL: UPDATE tbl_wallets SET balance = balance + ?, ledger_seq = ledger_seq + 1, updated_at = ? WHERE id = ? AND is_active = true
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WalletEntity w SET w.balance = w.balance + :amount, w.ledgerSeq = w.ledgerSeq + 1, w.updatedAt = :now " +
+            "WHERE w.id = :walletId AND w.isActive = true")
+    int creditBalance(@Param("walletId") Long walletId,
+                      @Param("amount") BigDecimal amount,
+                      @Param("now") LocalDateTime now);
+
+    // Group commit: add the sum of several deposits and take one ledger sequence number per deposit
+    // SQL: UPDATE tbl_wallets SET balance = balance + ?, ledger_seq = ledger_seq + ?, updated_at = ? WHERE id = ? AND is_active = true
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WalletEntity w SET w.balance = w.balance + :amount, w.ledgerSeq = w.ledgerSeq + :entries, w.updatedAt = :now " +
+            "WHERE w.id = :walletId AND w.isActive = true")
+    int creditBalanceBatch(@Param("walletId") Long walletId,
+                           @Param("amount") BigDecimal amount,
+                           @Param("entries") long entries,
+                           @Param("now") LocalDateTime now);
+
+    // Batch operation: apply a wallet's net change over several legs and take one ledger sequence
+    // number per leg - the row is already locked and validated, the guard only backs that up
+    // SQL: UPDATE tbl_wallets SET balance = balance + ?, ledger_seq = ledger_seq + ?, updated_at = ? WHERE id = ? AND is_active = true AND balance + ? >= 0
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WalletEntity w SET w.balance = w.balance + :delta, w.ledgerSeq = w.ledgerSeq + :entries, w.updatedAt = :now " +
+            "WHERE w.id = :walletId AND w.isActive = true AND w.balance + :delta >= 0")
+    int applyBatchEntries(@Param("walletId") Long walletId,
+                          @Param("delta") BigDecimal delta,
+                          @Param("entries") long entries,
+                          @Param("now") LocalDateTime now);
+
+    // Atomically subtract from an active wallet only if the balance covers it, and take the next
+    // ledger sequence number - returns 0 otherwise
+    // SQL: UPDATE tbl_wallets SET balance = balance - ?, ledger_seq = ledger_seq + 1, updated_at = ? WHERE id = ? AND is_active = true AND balance >= ?
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WalletEntity w SET w.balance = w.balance - :amount, w.ledgerSeq = w.ledgerSeq + 1, w.updatedAt = :now " +
+            "WHERE w.id = :walletId AND w.isActive = true AND w.balance >= :amount")
+    int debitBalance(@Param("walletId") Long walletId,
+                     @Param("amount") BigDecimal amount,
+                     @Param("now") LocalDateTime now);
+
+    // Load a wallet and hold a row lock on it until the transaction ends
+    // SQL: SELECT ... FROM tbl_wallets WHERE id = ? FOR UPDATE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WalletEntity w WHERE w.id = :walletId")
+    Optional<WalletEntity> findByIdForUpdate(@Param("walletId") Long walletId);
+
+    // Wallets created before the ledger existed (sequence numbers not assigned yet)
+    @Query("SELECT w.id FROM WalletEntity w WHERE w.ledgerSeq IS NULL AND w.id > :afterId ORDER BY w.id")
+    List<Long> findIdsWithoutLedger(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE WalletEntity w SET w.ledgerSeq = :ledgerSeq WHERE w.id = :walletId")
+    int setLedgerSeq(@Param("walletId") Long walletId, @Param("ledgerSeq") Long ledgerSeq);
+
+    // Bulk delete of the wallet row itself (its activities and snapshots are removed first)
+    @Modifying
+    @Query("DELETE FROM WalletEntity w WHERE w.id = :walletId")
+    int deleteWalletById(@Param("walletId") Long walletId);
+
+    // Id bounds of all wallets (reconciliation partitions)
+    @Query("SELECT MIN(w.id) FROM WalletEntity w")
+    Long findMinId();
+
+    @Query("SELECT MAX(w.id) FROM WalletEntity w")
+    Long findMaxId();
+
+    /**
+     * CACHED VS. LEDGER BALANCE FOR AN ID RANGE - one grouped statement per reconciliation chunk
+     *
+     * SQL: SELECT w.id, w.ledger_seq, w.balance, COALESCE(s.balance, 0) + COALESCE(SUM(a.amount), 0)
+     *      FROM tbl_wallets w
+     *      LEFT JOIN tbl_wallet_snapshots s ON s.wallet_id = w.id AND s.sequence_no = (latest snapshot of w)
+     *      LEFT JOIN tbl_wallet_activities a ON a.wallet_id = w.id AND a.sequence_no > s.sequence_no AND a.sequence_no <= w.ledger_seq
+     *      WHERE w.id > ? AND w.id <= ? AND w.ledger_seq IS NOT NULL
+     *      GROUP BY w.id, w.ledger_seq, w.balance, s.balance
+     *
+     * Entries after the latest snapshot are never archived, so the hot table holds the whole tail.
+     * A single statement reads one consistent state, so a balance update that commits while the
+     * job runs cannot show up as a false mismatch.
+     * Used in: WalletReconciliationService
+     */
+    @Query("SELECT new io.equitrack.dto.WalletReconciliationRowDTO(w.id, w.ledgerSeq, w.balance, " +
+            "COALESCE(s.balance, 0) + COALESCE(SUM(a.amount), 0)) " +
+            "FROM WalletEntity w " +
+            "LEFT JOIN WalletSnapshotEntity s ON s.walletId = w.id AND s.sequenceNo = " +
+            "(SELECT MAX(s2.sequenceNo) FROM WalletSnapshotEntity s2 WHERE s2.walletId = w.id) " +
+            "LEFT JOIN WalletActivityEntity a ON a.wallet.id = w.id " +
+            "AND a.sequenceNo > COALESCE(s.sequenceNo, 0) AND a.sequenceNo <= w.ledgerSeq " +
+            "WHERE w.id > :afterId AND w.id <= :upToId AND w.ledgerSeq IS NOT NULL " +
+            "GROUP BY w.id, w.ledgerSeq, w.balance, s.balance")
+    List<WalletReconciliationRowDTO> findReconciliationRows(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+
+    // Reset the cached balance to the ledger value - only if no entry was appended since it was computed
+    // SQL: UPDATE tbl_wallets SET balance = ?, updated_at = ? WHERE id = ? AND ledger_seq = ?
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE WalletEntity w SET w.balance = :balance, w.updatedAt = :now " +
+            "WHERE w.id = :walletId AND w.ledgerSeq = :ledgerSeq")
+    int repairBalance(@Param("walletId") Long walletId,
+                      @Param("ledgerSeq") Long ledgerSeq,
+                      @Param("balance") BigDecimal balance,
+                      @Param("now") LocalDateTime now);
+}
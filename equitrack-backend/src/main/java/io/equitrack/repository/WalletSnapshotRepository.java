@@ -0,0 +1,22 @@
+package io.equitrack.repository;
+
+import io.equitrack.entity.WalletSnapshotEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface WalletSnapshotRepository extends JpaRepository<WalletSnapshotEntity, Long> {
+
+    // Newest snapshot at or before a ledger position
+    Optional<WalletSnapshotEntity> findFirstByWalletIdAndSequenceNoLessThanEqualOrderBySequenceNoDesc(Long walletId, Long sequenceNo);
+
+    // Remove all snapshots of a deleted wallet
+    @Modifying
+    @Query("DELETE FROM WalletSnapshotEntity s WHERE s.walletId = :walletId")
+    int deleteByWalletId(@Param("walletId") Long walletId);
+}
@@ -0,0 +1,215 @@
+package io.equitrack.service;
+
+import io.equitrack.entity.ActivityBitmapEntity;
+import io.equitrack.entity.ProfileEntity;
+import io.equitrack.repository.ActivityBitmapRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DAILY ACTIVITY BITMAPS (which users logged an income or expense on a given local day)
+ *
+ * - The income/expense write paths set the user's bit in an in-memory Roaring bitmap for the
+ *   user's local date (after the transaction commits)
+ * - Each node flushes its bitmaps to tbl_activity_bitmaps every minute and on shutdown, one row
+ *   per (day, node)
+ * - Readers OR every node's row for the day with the local bitmap, so the reminder dispatcher
+ *   can drop active users from a slot with a single AND-NOT
+ *
+ * Profile ids are 64-bit (Roaring64Bitmap), so any IDENTITY value can be recorded. Rows written
+ * by the earlier 32-bit RoaringBitmap format are still read until they expire.
+ */
+@Service
+@Slf4j
+public class ActivityBitmapService {
+
+    private final ActivityBitmapRepository activityBitmapRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    // Unique per process - restarts write new rows, which readers union in
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName()
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    // Local date -> users recorded by this node
+    private final ConcurrentHashMap<LocalDate, Roaring64Bitmap> recorded = new ConcurrentHashMap<>();
+    private final Set<LocalDate> dirty = ConcurrentHashMap.newKeySet();
+
+    // Local date -> union over all nodes, reused for a short while by the dispatcher
+    private final ConcurrentHashMap<LocalDate, CachedUnion> unions = new ConcurrentHashMap<>();
+
+    @Value("${equitrack.activity.union-cache-seconds:30}")
+    private long unionCacheSeconds;
+
+    @Value("${equitrack.activity.retention-days:35}")
+    private int retentionDays;
+
+    public ActivityBitmapService(ActivityBitmapRepository activityBitmapRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.activityBitmapRepository = activityBitmapRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Marks the profile as active today (in the profile's timezone)
+     * Inside a transaction the bit is only set once it commits
+     */
+    public void recordActivity(ProfileEntity profile) {
+        LocalDate day = LocalDate.now(zoneOf(profile.getTimezone()));
+        long id = profile.getId();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mark(day, id);
+                }
+            });
+        } else {
+            mark(day, id);
+        }
+    }
+
+    /**
+     * Users active on the given local day across all nodes
+     * The returned bitmap is shared - callers must not modify it
+     */
+    public Roaring64Bitmap activeUsers(LocalDate day) {
+        CachedUnion cached = unions.get(day);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt() < unionCacheSeconds * 1000) {
+            return cached.bitmap();
+        }
+
+        Roaring64Bitmap union = new Roaring64Bitmap();
+        for (ActivityBitmapEntity row : activityBitmapRepository.findByActivityDate(day)) {
+            union.or(deserialize(row));
+        }
+        // Bits not flushed yet
+        Roaring64Bitmap local = recorded.get(day);
+        if (local != null) {
+            synchronized (local) {
+                union.or(local);
+            }
+        }
+        unions.put(day, new CachedUnion(union, now));
+        return union;
+    }
+
+    /**
+     * Persists changed days of this node's bitmaps; also drops days no timezone can still be on
+     */
+    @Scheduled(fixedDelayString = "${equitrack.activity.flush-interval-ms:60000}")
+    public void flush() {
+        for (LocalDate day : new ArrayList<>(dirty)) {
+            dirty.remove(day);
+            Roaring64Bitmap bitmap = recorded.get(day);
+            if (bitmap == null) {
+                continue;
+            }
+            Roaring64Bitmap copy;
+            synchronized (bitmap) {
+                copy = bitmap.clone();
+            }
+            copy.runOptimize();
+            try {
+                save(day, copy);
+            } catch (Exception e) {
+                dirty.add(day);  // Try again on the next flush
+                log.error("❌ Failed to persist activity bitmap for {}: {}", day, e.getMessage());
+            }
+        }
+
+        // UTC date minus 2 is over in every timezone (max offset is +14h)
+        LocalDate oldestLive = LocalDate.now(ZoneOffset.UTC).minusDays(2);
+        recorded.keySet().removeIf(day -> day.isBefore(oldestLive) && !dirty.contains(day));
+        unions.keySet().removeIf(day -> day.isBefore(oldestLive));
+    }
+
+    // Day-end and shutdown: whatever is in memory is written before the node goes away
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(cron = "0 30 0 * * *", zone = "UTC")
+    public void deleteExpired() {
+        Integer deleted = transactionTemplate.execute(tx ->
+                activityBitmapRepository.deleteOlderThan(LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays)));
+        if (deleted != null && deleted > 0) {
+            log.info("🧹 Deleted {} expired activity bitmaps", deleted);
+        }
+    }
+
+    private void mark(LocalDate day, long profileId) {
+        Roaring64Bitmap bitmap = recorded.computeIfAbsent(day, d -> new Roaring64Bitmap());
+        synchronized (bitmap) {
+            bitmap.addLong(profileId);
+        }
+        dirty.add(day);
+        unions.remove(day);
+    }
+
+    private void save(LocalDate day, Roaring64Bitmap bitmap) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(bitmap.serializedSizeInBytes()));
+        bitmap.serialize(buffer);
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            ActivityBitmapEntity row = activityBitmapRepository.findByActivityDateAndNodeId(day, nodeId)
+                    .orElseGet(() -> ActivityBitmapEntity.builder().activityDate(day).nodeId(nodeId).build());
+            row.setBitmap(buffer.array());
+            row.setBitmapFormat(ActivityBitmapEntity.FORMAT_64);
+            row.setCardinality(bitmap.getLongCardinality());
+            row.setUpdatedAt(LocalDateTime.now());
+            activityBitmapRepository.save(row);
+        });
+    }
+
+    private Roaring64Bitmap deserialize(ActivityBitmapEntity row) {
+        Roaring64Bitmap bitmap = new Roaring64Bitmap();
+        try {
+            if (row.getBitmapFormat() == null) {
+                // Legacy 32-bit row - profile ids in it are all non-negative ints
+                RoaringBitmap legacy = new RoaringBitmap();
+                legacy.deserialize(ByteBuffer.wrap(row.getBitmap()));
+                legacy.forEach((int id) -> bitmap.addLong(Integer.toUnsignedLong(id)));
+            } else {
+                bitmap.deserialize(ByteBuffer.wrap(row.getBitmap()));
+            }
+        } catch (IOException e) {
+            log.error("❌ Corrupt activity bitmap ignored: {}", e.getMessage());
+        }
+        return bitmap;
+    }
+
+    private ZoneId zoneOf(String timezone) {
+        try {
+            return ZoneId.of(timezone != null ? timezone : ProfileEntity.DEFAULT_TIMEZONE);
+        } catch (DateTimeException e) {
+            return ZoneId.of(ProfileEntity.DEFAULT_TIMEZONE);
+        }
+    }
+
+    private record CachedUnion(Roaring64Bitmap bitmap, long loadedAt) {}
+}
@@ -3,6 +3,8 @@ package io.equitrack.service;
 import io.equitrack.entity.ProfileEntity;
 import io.equitrack.repository.ProfileRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -10,6 +12,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
+import java.util.List;
 
 /**
  * BRIDGE BETWEEN YOUR USER DATABASE AND SPRING SECURITY
@@ -21,9 +24,15 @@ import java.util.Collections;
 @RequiredArgsConstructor
 public class AppUserDetailsService implements UserDetailsService {
 
+    public static final String ROLE_ADMIN = "ROLE_ADMIN";
+
     // Database access to find users
     private final ProfileRepository profileRepository;
 
+    // Accounts allowed to call admin endpoints (e.g. forcing an exchange rate reload)
+    @Value("${equitrack.admin.emails:}")
+    private List<String> adminEmails;
+
     /**
      * THE CORE AUTHENTICATION METHOD - Called by Spring Security during login
      *
@@ -43,7 +52,14 @@ public class AppUserDetailsService implements UserDetailsService {
         return User.builder()
                 .username(existingProfile.getEmail())      // Login identifier
                 .password(existingProfile.getPassword())   // BCrypt encrypted password
-                .authorities(Collections.emptyList())      // User roles/permissions (empty for now)
+                .authorities(isAdmin(existingProfile.getEmail())
+                        ? List.of(new SimpleGrantedAuthority(ROLE_ADMIN))
+                        : Collections.emptyList())          // ROLE_ADMIN for equitrack.admin.emails only
                 .build();
     }
+
+    // Admins are configured, not stored - there is no way to grant the role through the API
+    private boolean isAdmin(String email) {
+        return adminEmails.stream().anyMatch(admin -> admin.trim().equalsIgnoreCase(email));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,244 @@
+package io.equitrack.service;
+
+import io.equitrack.entity.BatchPartitionEntity;
+import io.equitrack.repository.BatchPartitionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PARTITIONED, CHECKPOINTED RUNNER FOR USER-WIDE JOBS
+ *
+ * A run (job name + occurrence) is split into id-range partitions stored in tbl_batch_partitions.
+ * Partitions are processed in parallel on the batchExecutor pool, chunk by chunk:
+ * - each chunk's work and its checkpoint commit in ONE transaction, so a chunk is either done
+ *   and recorded, or neither
+ * - a re-run of the same occurrence (after a crash, a job-lock takeover or a retry of a FAILED
+ *   run by JobLockService) skips DONE partitions and continues the others from their last checkpoint
+ * - partitions are claimed with a lease, so a worker that lost its claim rolls its chunk back
+ *
+ * Per-partition timing and throughput are logged and exported as equitrack.batch.* metrics.
+ */
+@Service
+@Slf4j
+public class BatchJobRunner {
+
+    /**
+     * Result of one chunk: the highest id it covered and how many items it processed
+     */
+    public record Chunk(Long lastId, int items) {}
+
+    /**
+     * Processes the next chunk of ids in (afterId, rangeEnd]; returns null when nothing is left.
+     * Runs inside the chunk transaction - anything it writes commits with the checkpoint.
+     */
+    @FunctionalInterface
+    public interface ChunkProcessor {
+        Chunk process(long afterId, long rangeEnd);
+    }
+
+    private final BatchPartitionRepository batchPartitionRepository;
+    private final ThreadPoolTaskExecutor batchExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Identifies this worker process in partition claims
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName()
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Value("${equitrack.batch.partitions:4}")
+    private int partitionCount;
+
+    @Value("${equitrack.batch.lease-seconds:300}")
+    private long leaseSeconds;
+
+    public BatchJobRunner(BatchPartitionRepository batchPartitionRepository,
+                          @Qualifier("batchExecutor") ThreadPoolTaskExecutor batchExecutor,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.batchPartitionRepository = batchPartitionRepository;
+        this.batchExecutor = batchExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs (or resumes) one occurrence of a job over the id range [minId, maxId]
+     *
+     * @return total items processed by all partitions of this occurrence
+     * @throws RuntimeException if any partition failed - its checkpoint is kept for the next attempt
+     */
+    public long run(String jobName, String occurrence, Long minId, Long maxId, ChunkProcessor processor) {
+        return run(jobName, occurrence, minId, maxId, partitionCount, processor);
+    }
+
+    /**
+     * Same as above with an explicit partition count - small runs (one notification slot) use 1
+     */
+    public long run(String jobName, String occurrence, Long minId, Long maxId, int partitions, ChunkProcessor processor) {
+        if (minId == null || maxId == null || maxId < minId) {
+            log.info("📭 {} [{}] has nothing to process", jobName, occurrence);
+            return 0;
+        }
+
+        List<Future<?>> running = new ArrayList<>();
+        for (BatchPartitionEntity partition : createOrLoadPartitions(jobName, occurrence, minId, maxId, partitions)) {
+            if (!BatchPartitionEntity.STATUS_DONE.equals(partition.getStatus())) {
+                running.add(batchExecutor.submit(() -> runPartition(partition, processor)));
+            }
+        }
+        for (Future<?> future : running) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(jobName + " interrupted", e);
+            } catch (ExecutionException e) {
+                log.error("❌ {} [{}] partition crashed: {}", jobName, occurrence, e.getCause().getMessage());
+            }
+        }
+
+        // Report from the table - includes partitions finished by earlier attempts
+        long total = 0;
+        int failed = 0;
+        for (BatchPartitionEntity p : batchPartitionRepository.findByJobNameAndOccurrenceOrderByPartitionNo(jobName, occurrence)) {
+            total += p.getItemsProcessed();
+            if (!BatchPartitionEntity.STATUS_DONE.equals(p.getStatus())) {
+                failed++;
+            }
+            log.info("📊 {} [{}] partition {} ({}..{}): {} items, {}, {} ms",
+                    jobName, occurrence, p.getPartitionNo(), p.getRangeStart(), p.getRangeEnd(),
+                    p.getItemsProcessed(), p.getStatus(), p.getDurationMs());
+        }
+        if (failed > 0) {
+            throw new RuntimeException(jobName + " [" + occurrence + "]: " + failed + " partition(s) did not finish");
+        }
+        return total;
+    }
+
+    private List<BatchPartitionEntity> createOrLoadPartitions(String jobName, String occurrence, long minId, long maxId,
+                                                              int maxPartitions) {
+        List<BatchPartitionEntity> existing =
+                batchPartitionRepository.findByJobNameAndOccurrenceOrderByPartitionNo(jobName, occurrence);
+        if (!existing.isEmpty()) {
+            log.info("🔁 Resuming {} [{}] from checkpoints", jobName, occurrence);
+            return existing;
+        }
+
+        long span = maxId - minId + 1;
+        int count = (int) Math.max(1, Math.min(maxPartitions, span));
+        long size = (span + count - 1) / count;
+
+        List<BatchPartitionEntity> partitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = minId + i * size;
+            if (start > maxId) {
+                break;
+            }
+            partitions.add(BatchPartitionEntity.builder()
+                    .jobName(jobName)
+                    .occurrence(occurrence)
+                    .partitionNo(i)
+                    .rangeStart(start)
+                    .rangeEnd(Math.min(maxId, start + size - 1))
+                    .lastProcessedId(start - 1)
+                    .itemsProcessed(0)
+                    .status(BatchPartitionEntity.STATUS_PENDING)
+                    .build());
+        }
+        try {
+            transactionTemplate.executeWithoutResult(tx -> batchPartitionRepository.saveAll(partitions));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another worker - use theirs
+        }
+        return batchPartitionRepository.findByJobNameAndOccurrenceOrderByPartitionNo(jobName, occurrence);
+    }
+
+    private void runPartition(BatchPartitionEntity partition, ChunkProcessor processor) {
+        Long id = partition.getId();
+        Integer claimed = transactionTemplate.execute(tx -> {
+            LocalDateTime now = LocalDateTime.now();
+            return batchPartitionRepository.claim(id, nodeId, now, now.plusSeconds(leaseSeconds));
+        });
+        if (claimed == null || claimed == 0) {
+            log.info("⏭️ {} partition {} is owned by another worker", partition.getJobName(), partition.getPartitionNo());
+            return;
+        }
+
+        String job = partition.getJobName();
+        long rangeEnd = partition.getRangeEnd();
+        long afterId = partition.getLastProcessedId();
+        long items = 0;
+        long startNanos = System.nanoTime();
+        Counter itemCounter = Counter.builder("equitrack.batch.items")
+                .description("Items processed by batch jobs")
+                .tag("job", job)
+                .register(meterRegistry);
+
+        try {
+            while (afterId < rangeEnd) {
+                long from = afterId;
+                Chunk chunk = transactionTemplate.execute(tx -> {
+                    Chunk result = processor.process(from, rangeEnd);
+                    if (result == null) {
+                        return null;
+                    }
+                    int saved = batchPartitionRepository.checkpoint(id, nodeId, result.lastId(), result.items(),
+                            LocalDateTime.now().plusSeconds(leaseSeconds));
+                    if (saved == 0) {
+                        // Another worker took the partition over - undo this chunk
+                        throw new IllegalStateException("Lost claim on partition " + id);
+                    }
+                    return result;
+                });
+                if (chunk == null) {
+                    break;
+                }
+                afterId = chunk.lastId();
+                items += chunk.items();
+                itemCounter.increment(chunk.items());
+            }
+            finish(partition, BatchPartitionEntity.STATUS_DONE, startNanos, items, null);
+        } catch (Exception e) {
+            log.error("❌ {} partition {} failed after id {}: {}", job, partition.getPartitionNo(), afterId, e.getMessage());
+            finish(partition, BatchPartitionEntity.STATUS_FAILED, startNanos, items, e.getMessage());
+        }
+    }
+
+    private void finish(BatchPartitionEntity partition, String status, long startNanos, long items, String error) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        String message = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        transactionTemplate.executeWithoutResult(tx -> batchPartitionRepository.finish(
+                partition.getId(), nodeId, status, LocalDateTime.now(), durationMs, message));
+
+        Timer.builder("equitrack.batch.partition")
+                .description("Time to process one batch partition")
+                .tag("job", partition.getJobName())
+                .tag("partition", String.valueOf(partition.getPartitionNo()))
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        double perSecond = durationMs > 0 ? items * 1000.0 / durationMs : items;
+        log.info("⏱️ {} partition {} {}: {} items in {} ms ({} items/s)",
+                partition.getJobName(), partition.getPartitionNo(), status, items, durationMs, Math.round(perSecond));
+    }
+}
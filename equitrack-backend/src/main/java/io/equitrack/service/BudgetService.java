@@ -1,5 +1,6 @@
 package io.equitrack.service;
 
+import io.equitrack.dto.BudgetStatusDTO;
 import io.equitrack.entity.BudgetEntity;
 import io.equitrack.entity.CategoryEntity;
 import io.equitrack.entity.ProfileEntity;
@@ -11,12 +12,21 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class BudgetService {
 
+    private static final Set<String> PERIODS = Set.of("DAILY", "WEEKLY", "MONTHLY", "YEARLY");
+
     @Autowired
     private BudgetRepository budgetRepository;
 
@@ -45,9 +55,7 @@ public class BudgetService {
             throw new RuntimeException("Budget limit must be greater than zero");
         }
 
-        if (!period.equals("MONTHLY") && !period.equals("WEEKLY")) {
-            throw new RuntimeException("Period must be either MONTHLY or WEEKLY");
-        }
+        validatePeriod(period);
 
         BudgetEntity budget = BudgetEntity.builder()
                 .profile(profile)
@@ -83,9 +91,7 @@ public class BudgetService {
         }
 
         if (period != null) {
-            if (!period.equals("MONTHLY") && !period.equals("WEEKLY")) {
-                throw new RuntimeException("Period must be either MONTHLY or WEEKLY");
-            }
+            validatePeriod(period);
             budget.setPeriod(period);
         }
 
@@ -111,4 +117,60 @@ public class BudgetService {
                 .orElseThrow(() -> new RuntimeException("Profile not found"));
         return budgetRepository.findByProfileAndPeriod(profile, period);
     }
-}
\ No newline at end of file
+
+    // Get how much of each budget is used in its current period window
+    // One grouped query for all budgets; windows are calendar periods in the profile's timezone
+    // (weeks start on Monday)
+    public List<BudgetStatusDTO> getBudgetStatus(Long profileId) {
+        ProfileEntity profile = profileRepository.findById(profileId)
+                .orElseThrow(() -> new RuntimeException("Profile not found"));
+
+        LocalDate today = LocalDate.now(zoneOf(profile.getTimezone()));
+        LocalDate weekStart = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate monthStart = today.withDayOfMonth(1);
+        LocalDate yearStart = today.withDayOfYear(1);
+
+        List<BudgetStatusDTO> statuses = budgetRepository.findBudgetStatus(profileId,
+                today, today.plusDays(1),
+                weekStart, weekStart.plusWeeks(1),
+                monthStart, monthStart.plusMonths(1),
+                yearStart, yearStart.plusYears(1));
+
+        for (BudgetStatusDTO status : statuses) {
+            LocalDate windowStart = switch (status.getPeriod()) {
+                case "DAILY" -> today;
+                case "WEEKLY" -> weekStart;
+                case "YEARLY" -> yearStart;
+                default -> monthStart;
+            };
+            LocalDate windowEnd = switch (status.getPeriod()) {
+                case "DAILY" -> today;
+                case "WEEKLY" -> weekStart.plusDays(6);
+                case "YEARLY" -> yearStart.with(TemporalAdjusters.lastDayOfYear());
+                default -> monthStart.with(TemporalAdjusters.lastDayOfMonth());
+            };
+            status.setWindowStart(windowStart);
+            status.setWindowEnd(windowEnd);
+            status.setRemaining(status.getLimitAmount().subtract(status.getSpent()));
+            status.setPercentage(status.getLimitAmount().signum() > 0
+                    ? status.getSpent().multiply(BigDecimal.valueOf(100))
+                            .divide(status.getLimitAmount(), 2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO);
+        }
+        return statuses;
+    }
+
+    private void validatePeriod(String period) {
+        if (!PERIODS.contains(period)) {
+            throw new RuntimeException("Period must be one of DAILY, WEEKLY, MONTHLY or YEARLY");
+        }
+    }
+
+    private ZoneId zoneOf(String timezone) {
+        try {
+            return ZoneId.of(timezone != null ? timezone : ProfileEntity.DEFAULT_TIMEZONE);
+        } catch (DateTimeException e) {
+            return ZoneId.of(ProfileEntity.DEFAULT_TIMEZONE);
+        }
+    }
+}
@@ -4,9 +4,11 @@ import io.equitrack.dto.CategoryDTO;
 import io.equitrack.entity.CategoryEntity;
 import io.equitrack.entity.ProfileEntity;
 import io.equitrack.repository.CategoryRepository;
+import io.equitrack.repository.ProfileRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
@@ -27,6 +29,9 @@ public class CategoryService {
     // Dependency injection - database operations for categories
     private final CategoryRepository categoryRepository;
 
+    // Dependency injection - export data versions (category names appear in exports)
+    private final ProfileRepository profileRepository;
+
     /**
      * CREATE NEW CATEGORY FOR CURRENT USER
      * Business rules:
@@ -74,7 +79,9 @@ public class CategoryService {
     /**
      * UPDATE EXISTING CATEGORY
      * Security: Verifies user owns the category before updating
+     * Renaming bumps both export data versions since exports show category names
      */
+    @Transactional
     public CategoryDTO updateCategory(Long categoryId, CategoryDTO categoryDTO){
         ProfileEntity profile = profileService.getCurrentProfile();
 
@@ -88,6 +95,8 @@ public class CategoryService {
 
         // Save changes
         existingCategory = categoryRepository.save(existingCategory);
+        profileRepository.incrementIncomeDataVersion(profile.getId());
+        profileRepository.incrementExpenseDataVersion(profile.getId());
         return toDTO(existingCategory);
     }
 
@@ -0,0 +1,199 @@
+package io.equitrack.service;
+
+import io.equitrack.dto.ConvertedTotalDTO;
+import io.equitrack.dto.CurrencyTotalDTO;
+import io.equitrack.entity.ExchangeRateEntity;
+import io.equitrack.repository.ExchangeRateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * CURRENCY CONVERSION WITH AN IN-MEMORY RATE TABLE
+ *
+ * Every rate is stored against one reference currency (equitrack.currency.reference, PHP by
+ * default), so converting A -> B is amount * rate(A) / rate(B). The table is loaded from
+ * equitrack.currency.rates-file when set (a properties file: USD=56.10), otherwise from
+ * tbl_exchange_rates, and reloaded every refresh-interval-ms or on demand - no restart needed.
+ * Readers always see one complete table: a reload swaps the whole map at once.
+ */
+@Service
+@Slf4j
+public class CurrencyService {
+
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final ResourceLoader resourceLoader;
+
+    @Value("${equitrack.currency.reference:PHP}")
+    private String referenceCurrency;
+
+    @Value("${equitrack.currency.rates-file:}")
+    private String ratesFile;
+
+    // Currency -> units of the reference currency per unit; replaced as a whole on every reload
+    private volatile Map<String, BigDecimal> rates = Map.of();
+
+    public CurrencyService(ExchangeRateRepository exchangeRateRepository, ResourceLoader resourceLoader) {
+        this.exchangeRateRepository = exchangeRateRepository;
+        this.resourceLoader = resourceLoader;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    /**
+     * Reloads the rate table from its source
+     * @return The new table
+     * @throws RuntimeException if the rates file cannot be read (the old table stays in use)
+     */
+    @Scheduled(fixedDelayString = "${equitrack.currency.refresh-interval-ms:600000}",
+            initialDelayString = "${equitrack.currency.refresh-interval-ms:600000}")
+    public Map<String, BigDecimal> refresh() {
+        Map<String, BigDecimal> loaded = new HashMap<>();
+        if (ratesFile.isBlank()) {
+            for (ExchangeRateEntity row : exchangeRateRepository.findAll()) {
+                loaded.put(row.getCurrency().toUpperCase(Locale.ROOT), row.getRate());
+            }
+        } else {
+            loaded.putAll(readRatesFile());
+        }
+        loaded.put(referenceCurrency, BigDecimal.ONE);
+
+        if (!loaded.equals(rates)) {
+            log.info("💱 Loaded {} exchange rates against {} from {}", loaded.size(), referenceCurrency,
+                    ratesFile.isBlank() ? "tbl_exchange_rates" : ratesFile);
+        }
+        rates = Map.copyOf(loaded);
+        return rates;
+    }
+
+    public Map<String, BigDecimal> getRates() {
+        return rates;
+    }
+
+    public String getReferenceCurrency() {
+        return referenceCurrency;
+    }
+
+    public boolean isSupported(String currency) {
+        return currency != null && rates.containsKey(currency.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Converts an amount between two currencies, rounded to 2 decimals
+     * @throws RuntimeException if either currency has no rate
+     */
+    public BigDecimal convert(BigDecimal amount, String from, String to) {
+        if (from.equalsIgnoreCase(to)) {
+            return amount;
+        }
+        return amount.multiply(rate(from)).divide(rate(to), 2, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Adds up per-currency totals in the target currency - one rate lookup per currency, not per wallet
+     * A currency without a rate (removed from the table, or never loaded) does not fail the sum:
+     * its balance is left out and the currency is listed in unconvertedCurrencies. Amounts already
+     * in the target currency are always counted, even if the target itself has lost its rate.
+     */
+    public ConvertedTotalDTO sumIn(List<CurrencyTotalDTO> totals, String target) {
+        Map<String, BigDecimal> table = rates;  // One table for the whole sum, even if a reload swaps it
+        BigDecimal targetRate = lookup(table, target);
+        BigDecimal inTarget = BigDecimal.ZERO;
+        BigDecimal inReference = BigDecimal.ZERO;
+        List<String> unconverted = new ArrayList<>();
+        for (CurrencyTotalDTO total : totals) {
+            if (total.getTotal() == null) {
+                continue;
+            }
+            if (total.getCurrency() != null && total.getCurrency().equalsIgnoreCase(target)) {
+                inTarget = inTarget.add(total.getTotal());
+                continue;
+            }
+            BigDecimal rate = lookup(table, total.getCurrency());
+            if (rate == null || targetRate == null) {
+                unconverted.add(total.getCurrency());
+                continue;
+            }
+            inReference = inReference.add(total.getTotal().multiply(rate));
+        }
+        if (!unconverted.isEmpty()) {
+            log.warn("⚠️ No exchange rate to convert {} into {} - left out of the total", unconverted, target);
+        }
+        BigDecimal converted = targetRate != null
+                ? inReference.divide(targetRate, 2, RoundingMode.HALF_EVEN)
+                : BigDecimal.ZERO;
+        return ConvertedTotalDTO.builder()
+                .total(inTarget.add(converted).setScale(2, RoundingMode.HALF_EVEN))
+                .currency(target)
+                .unconvertedCurrencies(unconverted)
+                .build();
+    }
+
+    /**
+     * Multiplier that converts amounts of one currency into another with the current table
+     * @return 1 for the same currency; empty if either currency has no rate
+     */
+    public Optional<BigDecimal> conversionFactor(String from, String to) {
+        if (from != null && from.equalsIgnoreCase(to)) {
+            return Optional.of(BigDecimal.ONE);
+        }
+        Map<String, BigDecimal> table = rates;
+        BigDecimal fromRate = lookup(table, from);
+        BigDecimal toRate = lookup(table, to);
+        if (fromRate == null || toRate == null) {
+            return Optional.empty();
+        }
+        return Optional.of(fromRate.divide(toRate, 12, RoundingMode.HALF_EVEN));
+    }
+
+    private static BigDecimal lookup(Map<String, BigDecimal> table, String currency) {
+        return currency != null ? table.get(currency.toUpperCase(Locale.ROOT)) : null;
+    }
+
+    private BigDecimal rate(String currency) {
+        BigDecimal rate = lookup(rates, currency);
+        if (rate == null) {
+            throw new RuntimeException("No exchange rate for currency: " + currency);
+        }
+        return rate;
+    }
+
+    private Map<String, BigDecimal> readRatesFile() {
+        Resource resource = resourceLoader.getResource(ratesFile);
+        Properties properties = new Properties();
+        try (InputStream in = resource.getInputStream()) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read exchange rates from " + ratesFile + ": " + e.getMessage(), e);
+        }
+        Map<String, BigDecimal> loaded = new HashMap<>();
+        for (String currency : properties.stringPropertyNames()) {
+            BigDecimal rate = new BigDecimal(properties.getProperty(currency).trim());
+            if (rate.signum() <= 0) {
+                throw new RuntimeException("Exchange rate for " + currency + " must be positive");
+            }
+            loaded.put(currency.trim().toUpperCase(Locale.ROOT), rate);
+        }
+        return loaded;
+    }
+}
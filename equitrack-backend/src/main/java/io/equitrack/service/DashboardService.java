@@ -1,5 +1,6 @@
 package io.equitrack.service;
 
+import io.equitrack.dto.ConvertedTotalDTO;
 import io.equitrack.dto.ExpenseDTO;
 import io.equitrack.dto.IncomeDTO;
 import io.equitrack.dto.RecentTransactionDTO;
@@ -107,7 +108,11 @@ public class DashboardService {
          * WALLET DATA - NEW FEATURE
          */
         returnValue.put("wallets", walletService.getActiveWallets(profileId));
-        returnValue.put("totalWalletBalance", walletService.getTotalBalance(profileId));
+        ConvertedTotalDTO walletTotal = walletService.getTotalBalance(profileId);
+        returnValue.put("totalWalletBalance", walletTotal.getTotal());
+        returnValue.put("walletCurrency", walletTotal.getCurrency());
+        // Wallets in these currencies have no exchange rate and are not in the total
+        returnValue.put("unconvertedWalletCurrencies", walletTotal.getUnconvertedCurrencies());
 
         /**
          * RECENT ACTIVITY DATA
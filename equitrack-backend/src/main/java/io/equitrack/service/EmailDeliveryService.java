@@ -0,0 +1,110 @@
+package io.equitrack.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.equitrack.entity.EmailOutboxEntity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import sendinblue.ApiException;
+import sibApi.TransactionalEmailsApi;
+import sibModel.SendSmtpEmail;
+import sibModel.SendSmtpEmailAttachment;
+import sibModel.SendSmtpEmailMessageVersions;
+import sibModel.SendSmtpEmailSender;
+import sibModel.SendSmtpEmailTo;
+import sibModel.SendSmtpEmailTo1;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BREVO TRANSPORT FOR OUTBOX ROWS
+ *
+ * Only EmailOutboxWorker calls this - everything else enqueues through EmailService.
+ * Methods throw on failure so the worker can retry the rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailDeliveryService {
+
+    private static final String SENDER_NAME = "EquiTrack";
+    private static final String SENDER_EMAIL = "desiigner4074@gmail.com";
+
+    private static final TypeReference<Map<String, Object>> PARAMS_TYPE = new TypeReference<>() {};
+
+    // Shared, pooled Brevo client (see BrevoConfig)
+    private final TransactionalEmailsApi transactionalEmailsApi;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Sends one email, including its attachment if it has one
+     */
+    public void send(EmailOutboxEntity row) throws ApiException {
+        SendSmtpEmail email = new SendSmtpEmail();
+        email.sender(sender());
+        email.to(Collections.singletonList(new SendSmtpEmailTo().email(row.getRecipient()).name(row.getRecipientName())));
+        email.subject(row.getSubject());
+        email.htmlContent(row.getHtmlBody());
+        if (row.getParamsJson() != null) {
+            email.params(parseParams(row.getParamsJson()));
+        }
+
+        if (row.getAttachment() != null) {
+            // Add attachment (Base64 encoded bytes)
+            SendSmtpEmailAttachment attachment = new SendSmtpEmailAttachment();
+            attachment.setName(row.getAttachmentName());
+            attachment.setContent(Base64.getEncoder().encode(row.getAttachment()));
+            email.setAttachment(Collections.singletonList(attachment));
+        }
+
+        transactionalEmailsApi.sendTransacEmail(email);
+    }
+
+    /**
+     * Sends rows that share subject and HTML in a single request using Brevo message versions
+     * Each row becomes one version carrying its own recipient and params
+     */
+    public void sendBatch(List<EmailOutboxEntity> rows) throws ApiException {
+        List<SendSmtpEmailMessageVersions> versions = new ArrayList<>(rows.size());
+        for (EmailOutboxEntity row : rows) {
+            SendSmtpEmailTo1 to = new SendSmtpEmailTo1().email(row.getRecipient());
+            if (row.getRecipientName() != null) {
+                to.name(row.getRecipientName());
+            }
+            SendSmtpEmailMessageVersions version = new SendSmtpEmailMessageVersions()
+                    .to(Collections.singletonList(to));
+            if (row.getParamsJson() != null) {
+                version.params(parseParams(row.getParamsJson()));
+            }
+            versions.add(version);
+        }
+
+        EmailOutboxEntity first = rows.get(0);
+        SendSmtpEmail email = new SendSmtpEmail();
+        email.sender(sender());
+        email.subject(first.getSubject());
+        email.htmlContent(first.getHtmlBody());
+        email.messageVersions(versions);
+
+        transactionalEmailsApi.sendTransacEmail(email);
+    }
+
+    private Map<String, Object> parseParams(String json) {
+        try {
+            return objectMapper.readValue(json, PARAMS_TYPE);
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid email params: " + e.getMessage(), e);
+        }
+    }
+
+    private SendSmtpEmailSender sender() {
+        return new SendSmtpEmailSender()
+                .name(SENDER_NAME)              // Display name
+                .email(SENDER_EMAIL);           // From address
+    }
+}
@@ -0,0 +1,365 @@
+package io.equitrack.service;
+
+import io.equitrack.entity.EmailOutboxEntity;
+import io.equitrack.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import sendinblue.ApiException;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DRAINS tbl_email_outbox THROUGH BREVO
+ *
+ * - A small pool of workers claims due rows with SELECT ... FOR UPDATE SKIP LOCKED, so any number
+ *   of workers and nodes can drain the table without sending an email twice
+ * - Rows with the same subject and HTML are sent as one message-versions request
+ * - Requests to Brevo are rate limited per node (token bucket)
+ * - Failures are retried with exponential backoff; rows that use up their attempts become DEAD
+ * - Rows left in SENDING by a crashed worker are reclaimed after stale-after-seconds
+ * - SENT and DEAD rows older than retention-days are purged nightly in chunks (one node at a time)
+ */
+@Service
+@Slf4j
+public class EmailOutboxWorker {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailDeliveryService emailDeliveryService;
+    private final JobLockService jobLockService;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final String PURGE_JOB = "email-outbox-purge";
+
+    @Value("${equitrack.email.outbox.workers:2}")
+    private int workers;
+
+    // Rows claimed per poll - also the largest message-versions batch
+    @Value("${brevo.batch.size:500}")
+    private int claimSize;
+
+    @Value("${equitrack.email.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${equitrack.email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${equitrack.email.outbox.backoff-base-seconds:30}")
+    private long backoffBaseSeconds;
+
+    @Value("${equitrack.email.outbox.backoff-max-seconds:3600}")
+    private long backoffMaxSeconds;
+
+    @Value("${equitrack.email.outbox.stale-after-seconds:600}")
+    private long staleAfterSeconds;
+
+    @Value("${equitrack.email.outbox.retention-days:30}")
+    private long retentionDays;
+
+    @Value("${equitrack.email.outbox.purge-chunk-size:1000}")
+    private int purgeChunkSize;
+
+    // Identifies this node in claimed_by
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final TokenBucket rateLimiter;
+    // Worker loops run on the emailOutboxExecutor pool (see AsyncConfig)
+    private final ThreadPoolTaskExecutor outboxExecutor;
+    private volatile boolean running;
+
+    // Metrics
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter deadCounter;
+    private final Timer deliveryTimer;
+    private final AtomicLong undelivered = new AtomicLong();
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public EmailOutboxWorker(EmailOutboxRepository emailOutboxRepository,
+                             EmailDeliveryService emailDeliveryService,
+                             JobLockService jobLockService,
+                             TransactionTemplate transactionTemplate,
+                             @Qualifier("emailOutboxExecutor") ThreadPoolTaskExecutor outboxExecutor,
+                             MeterRegistry meterRegistry,
+                             @Value("${equitrack.email.outbox.rate-per-second:10}") int ratePerSecond) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailDeliveryService = emailDeliveryService;
+        this.jobLockService = jobLockService;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxExecutor = outboxExecutor;
+        this.rateLimiter = new TokenBucket(ratePerSecond);
+
+        this.sentCounter = Counter.builder("equitrack.email.outbox.sent")
+                .description("Emails accepted by Brevo")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("equitrack.email.outbox.failed")
+                .description("Email delivery attempts that failed and were rescheduled")
+                .register(meterRegistry);
+        this.deadCounter = Counter.builder("equitrack.email.outbox.dead")
+                .description("Emails moved to DEAD after exhausting their attempts")
+                .register(meterRegistry);
+        this.deliveryTimer = Timer.builder("equitrack.email.outbox.delivery")
+                .description("Time spent in one Brevo request")
+                .register(meterRegistry);
+        meterRegistry.gauge("equitrack.email.outbox.pending", undelivered);
+        meterRegistry.gauge("equitrack.email.outbox.lag.seconds", lagSeconds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            outboxExecutor.execute(this::workerLoop);
+        }
+        log.info("✅ Email outbox started with {} workers on {}", workers, nodeId);
+    }
+
+    /**
+     * Stops the loops after their current batch; the executor then drains them on shutdown.
+     * Anything unsent is still in the table (SENDING rows are reclaimed once stale).
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Deletes finished rows past the retention period; one node per day runs it
+     */
+    @Scheduled(cron = "${equitrack.email.outbox.purge-cron:0 45 2 * * *}")
+    public void purgeFinished() {
+        jobLockService.runExclusive(PURGE_JOB, LocalDate.now().toString(), this::purge);
+    }
+
+    /**
+     * Deletes SENT and DEAD rows created before the retention cutoff, one chunk per transaction
+     * so a large backlog never holds locks on the table for long
+     *
+     * @return number of rows deleted
+     */
+    int purge() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        int deleted = 0;
+        while (true) {
+            Integer chunk = transactionTemplate.execute(tx -> {
+                List<Long> ids = emailOutboxRepository.findFinishedIdsBefore(before, PageRequest.of(0, purgeChunkSize));
+                return ids.isEmpty() ? 0 : emailOutboxRepository.deleteByIdIn(ids);
+            });
+            if (chunk == null || chunk == 0) {
+                break;
+            }
+            deleted += chunk;
+        }
+        if (deleted > 0) {
+            log.info("🧹 Purged {} finished outbox emails older than {} days", deleted, retentionDays);
+        }
+        return deleted;
+    }
+
+    private void workerLoop() {
+        while (running) {
+            try {
+                if (drainOnce() == 0) {
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("❌ Email outbox worker error: {}", e.getMessage());
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims one batch of due rows and delivers it
+     *
+     * @return number of rows claimed
+     */
+    int drainOnce() throws InterruptedException {
+        List<EmailOutboxEntity> claimed = claim();
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        // Rows sharing subject + HTML go out together; rows with attachments go out one by one
+        Map<String, List<EmailOutboxEntity>> groups = new LinkedHashMap<>();
+        List<List<EmailOutboxEntity>> singles = new ArrayList<>();
+        for (EmailOutboxEntity row : claimed) {
+            if (row.getAttachment() != null) {
+                singles.add(List.of(row));
+            } else {
+                groups.computeIfAbsent(row.getSubject() + '\u0000' + row.getHtmlBody(), k -> new ArrayList<>()).add(row);
+            }
+        }
+        for (List<EmailOutboxEntity> group : groups.values()) {
+            deliver(group);
+        }
+        for (List<EmailOutboxEntity> single : singles) {
+            deliver(single);
+        }
+        return claimed.size();
+    }
+
+    private List<EmailOutboxEntity> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<EmailOutboxEntity> locked = emailOutboxRepository.lockDeliverable(
+                    now, now.minusSeconds(staleAfterSeconds), claimSize);
+
+            List<EmailOutboxEntity> claimed = new ArrayList<>(locked.size());
+            for (EmailOutboxEntity row : locked) {
+                row.setAttempts(row.getAttempts() + 1);
+                if (row.getAttempts() > maxAttempts) {
+                    // Reclaimed from a dead worker with no attempts left
+                    row.setStatus(EmailOutboxEntity.STATUS_DEAD);
+                    row.setClaimedBy(null);
+                    deadCounter.increment();
+                    continue;
+                }
+                row.setStatus(EmailOutboxEntity.STATUS_SENDING);
+                row.setClaimedBy(nodeId);
+                row.setClaimedAt(now);
+                claimed.add(row);
+            }
+            return claimed;
+        });
+    }
+
+    private void deliver(List<EmailOutboxEntity> rows) throws InterruptedException {
+        rateLimiter.acquire();
+        try {
+            deliveryTimer.recordCallable(() -> {
+                if (rows.size() == 1 && rows.get(0).getAttachment() != null) {
+                    emailDeliveryService.send(rows.get(0));
+                } else {
+                    emailDeliveryService.sendBatch(rows);
+                }
+                return null;
+            });
+        } catch (ApiException e) {
+            if (isPermanent(e) && rows.size() > 1) {
+                // One bad address rejects the whole batch - retry the rows individually
+                log.warn("⚠️ Batch '{}' rejected ({}), retrying {} rows one by one",
+                        rows.get(0).getSubject(), e.getCode(), rows.size());
+                for (EmailOutboxEntity row : rows) {
+                    deliver(List.of(row));
+                }
+                return;
+            }
+            failed(rows, "Brevo " + e.getCode() + ": " + e.getResponseBody(), isPermanent(e));
+            return;
+        } catch (Exception e) {
+            failed(rows, e.getMessage(), false);
+            return;
+        }
+
+        List<Long> ids = rows.stream().map(EmailOutboxEntity::getId).toList();
+        transactionTemplate.executeWithoutResult(status ->
+                emailOutboxRepository.markSent(ids, LocalDateTime.now()));
+        sentCounter.increment(rows.size());
+        log.info("✅ Delivered {} email(s): {}", rows.size(), rows.get(0).getSubject());
+    }
+
+    private void failed(List<EmailOutboxEntity> rows, String error, boolean permanent) {
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutboxEntity row : rows) {
+            row.setLastError(error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            row.setClaimedBy(null);
+            if (permanent || row.getAttempts() >= maxAttempts) {
+                row.setStatus(EmailOutboxEntity.STATUS_DEAD);
+                deadCounter.increment();
+                log.error("❌ Email {} to {} is DEAD after {} attempts: {}", row.getId(), row.getRecipient(), row.getAttempts(), error);
+            } else {
+                row.setStatus(EmailOutboxEntity.STATUS_PENDING);
+                row.setNextAttemptAt(now.plus(backoff(row.getAttempts())));
+                failedCounter.increment();
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(rows));
+        log.warn("⚠️ Delivery of {} email(s) failed, rescheduled: {}", rows.size(), error);
+    }
+
+    // base * 2^(attempt-1), capped, with +/-20% jitter so failed batches don't retry in lockstep
+    private Duration backoff(int attempt) {
+        long seconds = Math.min(backoffMaxSeconds, backoffBaseSeconds << Math.min(attempt - 1, 20));
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (seconds * 1000 * jitter));
+    }
+
+    // 4xx other than 429 will fail again no matter how often it is retried as-is
+    private boolean isPermanent(ApiException e) {
+        return e.getCode() >= 400 && e.getCode() < 500 && e.getCode() != 429;
+    }
+
+    /**
+     * Refreshes the backlog gauges (pending rows and age of the oldest one)
+     */
+    @Scheduled(fixedDelayString = "${equitrack.email.outbox.metrics-interval-ms:15000}")
+    public void refreshMetrics() {
+        undelivered.set(emailOutboxRepository.countUndelivered());
+        LocalDateTime oldest = emailOutboxRepository.findOldestUndeliveredCreatedAt();
+        lagSeconds.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds()));
+    }
+
+    /**
+     * Simple token bucket - refills ratePerSecond tokens per second, burst up to ratePerSecond
+     */
+    private static class TokenBucket {
+
+        private final double ratePerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(int ratePerSecond) {
+            this.capacity = Math.max(1, ratePerSecond);
+            this.ratePerNano = capacity / TimeUnit.SECONDS.toNanos(1);
+            this.tokens = capacity;
+        }
+
+        void acquire() throws InterruptedException {
+            while (true) {
+                long waitNanos;
+                synchronized (this) {
+                    long now = System.nanoTime();
+                    tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+                    lastRefill = now;
+                    if (tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    waitNanos = (long) ((1 - tokens) / ratePerNano);
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.max(waitNanos, 1_000_000));
+            }
+        }
+    }
+}
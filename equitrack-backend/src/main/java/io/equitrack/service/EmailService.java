@@ -1,79 +1,51 @@
 package io.equitrack.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.equitrack.dto.EmailRecipientDTO;
+import io.equitrack.entity.EmailOutboxEntity;
+import io.equitrack.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import sendinblue.ApiClient;
-import sendinblue.Configuration;
-import sendinblue.auth.ApiKeyAuth;
-import sibApi.TransactionalEmailsApi;
-import sibModel.SendSmtpEmail;
-import sibModel.SendSmtpEmailSender;
-import sibModel.SendSmtpEmailTo;
-import sibModel.SendSmtpEmailAttachment;
-import java.util.Base64;
-
-import java.util.Base64;
-import java.util.Collections;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * EMAIL ENTRY POINT - WRITES TO THE OUTBOX
+ *
+ * Emails are not sent here. Each call inserts rows into tbl_email_outbox inside the caller's
+ * transaction, so an email exists only if the business change that caused it committed, and
+ * queued mail survives restarts. EmailOutboxWorker delivers the rows through Brevo.
+ */
 @Service
+@RequiredArgsConstructor
 @Slf4j  // Logger for tracking email operations
 public class EmailService {
 
-    // Inject Brevo (SendinBlue) API key from application.properties
-    @Value("${brevo.api.key}")
-    private String brevoApiKey;
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ObjectMapper objectMapper;
 
     /**
-     * ASYNCHRONOUSLY SEND EMAIL USING BREVO API
+     * QUEUE A PLAIN EMAIL
      *
-     * This method sends emails in the background without blocking the main application
      * Used for: Account activation, password reset, notifications
      *
      * @param to      - Recipient email address
      * @param subject - Email subject line
      * @param body    - Email content (will be wrapped in HTML)
      */
-    @Async  // Runs in background thread - doesn't block user requests
+    @Transactional  // Joins the caller's transaction when there is one
     public void sendEmail(String to, String subject, String body){
-        try{
-            // --- STEP 1: CONFIGURE BREVO API CLIENT ---
-            ApiClient defaultClient = Configuration.getDefaultApiClient();
-            ApiKeyAuth apiKey = (ApiKeyAuth) defaultClient.getAuthentication("api-key");
-            apiKey.setApiKey(brevoApiKey);  // Set API key for authentication
-
-            // --- STEP 2: CREATE EMAIL API INSTANCE ---
-            TransactionalEmailsApi api = new TransactionalEmailsApi();
-
-            // --- STEP 3: BUILD EMAIL MESSAGE ---
-            SendSmtpEmail email = new SendSmtpEmail();
-
-            // Set sender information
-            email.sender(new SendSmtpEmailSender()
-                    .name("EquiTrack")              // Display name
-                    .email("desiigner4074@gmail.com"));  // From address
-
-            // Set recipient (supports multiple recipients)
-            email.to(Collections.singletonList(
-                    new SendSmtpEmailTo().email(to)));
-
-            // Set email subject and HTML content
-            email.subject(subject);
-            email.htmlContent("<html><body><p>" + body + "</p></body></html>");
-
-            // --- STEP 4: SEND EMAIL ---
-            api.sendTransacEmail(email);
-            log.info("✅ Email sent successfully to: {}", to);
-
-        } catch(Exception e){
-            // Log error but don't crash the application
-            log.error("❌ Failed to send email to {}: {}", to, e.getMessage());
-        }
+        emailOutboxRepository.save(pending(to, null, subject, "<html><body><p>" + body + "</p></body></html>"));
+        log.info("📨 Email queued for: {}", to);
     }
 
     /**
-     * NEW METHOD: Send email with Excel attachment
+     * QUEUE AN EMAIL WITH AN EXCEL ATTACHMENT
      *
      * @param to       - Recipient email
      * @param subject  - Email subject
@@ -81,43 +53,61 @@ public class EmailService {
      * @param excelBytes - Excel file as byte array
      * @param filename - Attachment filename
      */
-    @Async
+    @Transactional
     public void sendEmailWithExcel(String to, String subject, String body, byte[] excelBytes, String filename){
-        try{
-            // Configure Brevo API
-            ApiClient defaultClient = Configuration.getDefaultApiClient();
-            ApiKeyAuth apiKey = (ApiKeyAuth) defaultClient.getAuthentication("api-key");
-            apiKey.setApiKey(brevoApiKey);
-
-            TransactionalEmailsApi api = new TransactionalEmailsApi();
-            SendSmtpEmail email = new SendSmtpEmail();
-
-            // Set sender
-            email.sender(new SendSmtpEmailSender()
-                    .name("EquiTrack")
-                    .email("desiigner4074@gmail.com"));
-
-            // Set recipient
-            email.to(Collections.singletonList(
-                    new SendSmtpEmailTo().email(to)));
-
-            // Set subject and body
-            email.subject(subject);
-            email.htmlContent(body);
+        EmailOutboxEntity row = pending(to, null, subject, body);
+        row.setAttachment(excelBytes);
+        row.setAttachmentName(filename);
+        emailOutboxRepository.save(row);
+        log.info("📨 Email with Excel queued for: {}", to);
+    }
 
-            // Add Excel attachment (Base64 encoded bytes)
-            SendSmtpEmailAttachment attachment = new SendSmtpEmailAttachment();
-            attachment.setName(filename);
-            attachment.setContent(Base64.getEncoder().encode(excelBytes)); // ✅ Returns byte[]
-            email.setAttachment(Collections.singletonList(attachment));
+    /**
+     * QUEUE ONE TEMPLATE FOR MANY RECIPIENTS
+     *
+     * The HTML is shared; per-recipient values go in params and are referenced from the
+     * template as {{ params.fullName }} (loops use {% for row in params.rows %}).
+     * The worker groups rows with the same subject and template into Brevo message-version
+     * batches, so 10k reminders are a few dozen HTTP calls.
+     *
+     * @param subject      - Email subject (may also reference params)
+     * @param htmlTemplate - Shared HTML body with Brevo template placeholders
+     * @param recipients   - Recipients and their template params
+     * @return number of emails queued
+     */
+    @Transactional
+    public int sendBatchEmail(String subject, String htmlTemplate, List<EmailRecipientDTO> recipients){
+        List<EmailOutboxEntity> rows = new ArrayList<>(recipients.size());
+        for(EmailRecipientDTO recipient : recipients){
+            EmailOutboxEntity row = pending(recipient.getEmail(), recipient.getName(), subject, htmlTemplate);
+            row.setParamsJson(toJson(recipient));
+            rows.add(row);
+        }
+        emailOutboxRepository.saveAll(rows);
+        log.info("📨 Batch email '{}' queued for {} recipients", subject, rows.size());
+        return rows.size();
+    }
 
-            // Send email
-            api.sendTransacEmail(email);
-            log.info("✅ Email with Excel sent successfully to: {}", to);
+    private EmailOutboxEntity pending(String to, String name, String subject, String html){
+        return EmailOutboxEntity.builder()
+                .recipient(to)
+                .recipientName(name)
+                .subject(subject)
+                .htmlBody(html)
+                .status(EmailOutboxEntity.STATUS_PENDING)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+    }
 
-        } catch(Exception e){
-            log.error("❌ Failed to send email with Excel to {}: {}", to, e.getMessage());
-            throw new RuntimeException("Failed to send email", e);
+    private String toJson(EmailRecipientDTO recipient){
+        if(recipient.getParams() == null){
+            return null;
+        }
+        try{
+            return objectMapper.writeValueAsString(recipient.getParams());
+        } catch(JsonProcessingException e){
+            throw new RuntimeException("Failed to serialize email params for " + recipient.getEmail(), e);
         }
     }
-}
\ No newline at end of file
+}
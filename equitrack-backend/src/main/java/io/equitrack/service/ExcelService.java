@@ -1,170 +1,310 @@
 package io.equitrack.service;
 
-import io.equitrack.entity.ExpenseEntity;
-import io.equitrack.entity.IncomeEntity;
+import io.equitrack.dto.ExportRowDTO;
+import io.equitrack.dto.WalletActivityDTO;
 import io.equitrack.repository.ExpenseRepository;
 import io.equitrack.repository.IncomeRepository;
+import io.equitrack.repository.ProfileRepository;
+import io.equitrack.repository.WalletActivityArchiveRepository;
+import io.equitrack.repository.WalletActivityRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ExcelService {
 
+    // Rows kept in memory per sheet by the streaming workbook; older rows are flushed to disk
+    private static final int STREAMING_WINDOW_ROWS = 200;
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy HH:mm");
+
     private final IncomeRepository incomeRepository;
     private final ExpenseRepository expenseRepository;
+    private final WalletActivityRepository walletActivityRepository;
+    private final WalletActivityArchiveRepository walletActivityArchiveRepository;
     private final EmailService emailService;
+    private final ProfileRepository profileRepository;
+    private final ExportCacheService exportCacheService;
+    private final ExportThrottleService exportThrottleService;
 
     /**
      * Generate Excel file from income data
+     * Served from the export cache while the user's income data version is unchanged
      */
     public byte[] generateIncomeExcel(Long profileId) {
-        try {
-            List<IncomeEntity> incomes = incomeRepository.findByProfileIdOrderByDateDesc(profileId);
-
-            // Use try-with-resources to ensure stream & workbook close properly
-            try (Workbook workbook = new XSSFWorkbook();
-                 ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-                Sheet sheet = workbook.createSheet("Income Details");
-
-                // Header style
-                CellStyle headerStyle = workbook.createCellStyle();
-                Font headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerFont.setFontHeightInPoints((short) 12);
-                headerStyle.setFont(headerFont);
-                headerStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-                headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-                // Header row
-                Row headerRow = sheet.createRow(0);
-                String[] headers = {"Name", "Amount", "Date", "Category"};
-                for (int i = 0; i < headers.length; i++) {
-                    Cell cell = headerRow.createCell(i);
-                    cell.setCellValue(headers[i]);
-                    cell.setCellStyle(headerStyle);
-                    sheet.setColumnWidth(i, 25 * 256);
-                }
-
-                // Data rows
-                int rowNum = 1;
-                double total = 0.0;
-                DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MMM dd, yyyy");
-
-                for (IncomeEntity income : incomes) {
-                    Row row = sheet.createRow(rowNum++);
-                    row.createCell(0).setCellValue(income.getName());
-                    row.createCell(1).setCellValue(income.getAmount().doubleValue());
-                    row.createCell(2).setCellValue(income.getDate().format(dateFormat));
-                    row.createCell(3).setCellValue(
-                            income.getCategory() != null ? income.getCategory().getName() : "Uncategorized"
-                    );
-                    total += income.getAmount().doubleValue();
-                }
-
-                // Total row
-                Row totalRow = sheet.createRow(rowNum + 1);
-                CellStyle totalStyle = workbook.createCellStyle();
-                Font totalFont = workbook.createFont();
-                totalFont.setBold(true);
-                totalStyle.setFont(totalFont);
-
-                totalRow.createCell(0).setCellValue("TOTAL");
-                Cell totalAmountCell = totalRow.createCell(1);
-                totalAmountCell.setCellValue(total);
-                totalRow.getCell(0).setCellStyle(totalStyle);
-                totalAmountCell.setCellStyle(totalStyle);
-
-                // Write and return bytes
-                workbook.write(outputStream);
-                return outputStream.toByteArray();
-            }
+        // Read the version BEFORE generating so a concurrent write can only make the cached file newer
+        Long version = profileRepository.findIncomeDataVersion(profileId);
+        return export(profileId, "income", "v" + (version != null ? version : 0), () -> buildIncomeExcel(profileId));
+    }
+
+    /**
+     * Generate Excel file from expense data
+     * Served from the export cache while the user's expense data version is unchanged
+     */
+    public byte[] generateExpenseExcel(Long profileId) {
+        Long version = profileRepository.findExpenseDataVersion(profileId);
+        return export(profileId, "expense", "v" + (version != null ? version : 0), () -> buildExpenseExcel(profileId));
+    }
+
+    /**
+     * Shared export pipeline: coalesce identical requests -> cache lookup -> permit-limited generation
+     */
+    private byte[] export(Long profileId, String exportType, String version, Supplier<byte[]> builder) {
+        return exportThrottleService.coalesce(exportType + "-" + profileId + "-" + version,
+                () -> exportCacheService.getOrGenerate(profileId, exportType, version,
+                        () -> exportThrottleService.withPermit(builder)));
+    }
+
+    /**
+     * Generate the full financial statement: income, expense, wallet activity and a summary sheet
+     * Cached until any of the three data versions changes
+     */
+    public byte[] generateStatementExcel(Long profileId) {
+        String version = profileRepository.findStatementDataVersion(profileId);
+        return export(profileId, "statement", version != null ? version : "i0-e0-w0", () -> buildStatementExcel(profileId));
+    }
+
+    /**
+     * Build income workbook from scratch
+     */
+    private byte[] buildIncomeExcel(Long profileId) {
+        List<ExportRowDTO> incomes = incomeRepository.findExportRowsByProfileId(profileId);
+        return writeWorkbook(profileId, workbook ->
+                writeTransactionSheet(workbook, "Income Details", IndexedColors.LIGHT_GREEN, incomes));
+    }
+
+    /**
+     * Build expense workbook from scratch
+     */
+    private byte[] buildExpenseExcel(Long profileId) {
+        List<ExportRowDTO> expenses = expenseRepository.findExportRowsByProfileId(profileId);
+        return writeWorkbook(profileId, workbook ->
+                writeTransactionSheet(workbook, "Expense Details", IndexedColors.LIGHT_ORANGE, expenses));
+    }
+
+    /**
+     * Build the full statement workbook
+     * The queries (incomes, expenses, hot and archived wallet activities) run concurrently on virtual threads, then the sheets are written one after
+     * another - so the statement costs roughly the slowest single query plus the writing time
+     */
+    private byte[] buildStatementExcel(Long profileId) {
+        List<ExportRowDTO> incomes;
+        List<ExportRowDTO> expenses;
+        List<WalletActivityDTO> activities;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<List<ExportRowDTO>> incomesFuture =
+                    executor.submit(() -> incomeRepository.findExportRowsByProfileId(profileId));
+            Future<List<ExportRowDTO>> expensesFuture =
+                    executor.submit(() -> expenseRepository.findExportRowsByProfileId(profileId));
+            Future<List<WalletActivityDTO>> activitiesFuture =
+                    executor.submit(() -> walletActivityRepository.findActivityRowsByProfileId(profileId));
+            Future<List<WalletActivityDTO>> archivedFuture =
+                    executor.submit(() -> walletActivityArchiveRepository.findActivityRowsByProfileId(profileId));
+
+            incomes = incomesFuture.get();
+            expenses = expensesFuture.get();
+            activities = withArchived(activitiesFuture.get(), archivedFuture.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading statement data", e);
+        } catch (ExecutionException e) {
+            log.error("❌ Error loading statement data for profile {}: {}", profileId, e.getCause().getMessage());
+            throw new RuntimeException("Failed to load statement data", e.getCause());
+        }
 
+        return writeWorkbook(profileId, workbook -> {
+            double totalIncome = writeTransactionSheet(workbook, "Income", IndexedColors.LIGHT_GREEN, incomes);
+            double totalExpense = writeTransactionSheet(workbook, "Expenses", IndexedColors.LIGHT_ORANGE, expenses);
+            writeWalletActivitySheet(workbook, activities);
+            writeSummarySheet(workbook, incomes.size(), totalIncome, expenses.size(), totalExpense, activities);
+        });
+    }
+
+    /**
+     * Creates a streaming workbook, lets the writer fill it and returns the bytes
+     * SXSSF keeps only a small window of rows in memory, so large histories don't blow the heap
+     */
+    private byte[] writeWorkbook(Long profileId, Consumer<Workbook> writer) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_WINDOW_ROWS);
+        // Use try-with-resources to ensure stream & workbook close properly
+        try (workbook; ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            writer.accept(workbook);
+
+            // Write and return bytes
+            workbook.write(outputStream);
+            return outputStream.toByteArray();
         } catch (Exception e) {
             log.error("❌ Error generating Excel for profile {}: {}", profileId, e.getMessage());
             throw new RuntimeException("Failed to generate Excel", e);
+        } finally {
+            workbook.dispose();  // Delete the temporary files backing the streamed rows
         }
     }
 
     /**
-     * Generate Excel file from expense data
+     * Writes an income/expense sheet with header, data rows and a TOTAL row
+     * @return The total amount written
      */
-    public byte[] generateExpenseExcel(Long profileId) {
-        try {
-            List<ExpenseEntity> expenses = expenseRepository.findByProfileIdOrderByDateDesc(profileId);
-
-            // Use try-with-resources to ensure stream & workbook close properly
-            try (Workbook workbook = new XSSFWorkbook();
-                 ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-
-                Sheet sheet = workbook.createSheet("Expense Details");
-
-                // Header style
-                CellStyle headerStyle = workbook.createCellStyle();
-                Font headerFont = workbook.createFont();
-                headerFont.setBold(true);
-                headerFont.setFontHeightInPoints((short) 12);
-                headerStyle.setFont(headerFont);
-                headerStyle.setFillForegroundColor(IndexedColors.LIGHT_ORANGE.getIndex());
-                headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-                // Header row
-                Row headerRow = sheet.createRow(0);
-                String[] headers = {"Name", "Amount", "Date", "Category"};
-                for (int i = 0; i < headers.length; i++) {
-                    Cell cell = headerRow.createCell(i);
-                    cell.setCellValue(headers[i]);
-                    cell.setCellStyle(headerStyle);
-                    sheet.setColumnWidth(i, 25 * 256);
-                }
-
-                // Data rows
-                int rowNum = 1;
-                double total = 0.0;
-                DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("MMM dd, yyyy");
-
-                for (ExpenseEntity expense : expenses) {
-                    Row row = sheet.createRow(rowNum++);
-                    row.createCell(0).setCellValue(expense.getName());
-                    row.createCell(1).setCellValue(expense.getAmount().doubleValue());
-                    row.createCell(2).setCellValue(expense.getDate().format(dateFormat));
-                    row.createCell(3).setCellValue(
-                            expense.getCategory() != null ? expense.getCategory().getName() : "Uncategorized"
-                    );
-                    total += expense.getAmount().doubleValue();
-                }
-
-                // Total row
-                Row totalRow = sheet.createRow(rowNum + 1);
-                CellStyle totalStyle = workbook.createCellStyle();
-                Font totalFont = workbook.createFont();
-                totalFont.setBold(true);
-                totalStyle.setFont(totalFont);
-
-                totalRow.createCell(0).setCellValue("TOTAL");
-                Cell totalAmountCell = totalRow.createCell(1);
-                totalAmountCell.setCellValue(total);
-                totalRow.getCell(0).setCellStyle(totalStyle);
-                totalAmountCell.setCellStyle(totalStyle);
-
-                // Write and return bytes
-                workbook.write(outputStream);
-                return outputStream.toByteArray();
+    private double writeTransactionSheet(Workbook workbook, String sheetName, IndexedColors headerColor, List<ExportRowDTO> rows) {
+        Sheet sheet = workbook.createSheet(sheetName);
+        writeHeader(workbook, sheet, headerColor, new String[]{"Name", "Amount", "Date", "Category"});
+
+        // Data rows
+        int rowNum = 1;
+        double total = 0.0;
+
+        for (ExportRowDTO item : rows) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(item.getName());
+            row.createCell(1).setCellValue(item.getAmount().doubleValue());
+            row.createCell(2).setCellValue(item.getDate().format(DATE_FORMAT));
+            row.createCell(3).setCellValue(
+                    item.getCategoryName() != null ? item.getCategoryName() : "Uncategorized"
+            );
+            total += item.getAmount().doubleValue();
+        }
+
+        // Total row
+        Row totalRow = sheet.createRow(rowNum + 1);
+        CellStyle totalStyle = boldStyle(workbook);
+
+        totalRow.createCell(0).setCellValue("TOTAL");
+        Cell totalAmountCell = totalRow.createCell(1);
+        totalAmountCell.setCellValue(total);
+        totalRow.getCell(0).setCellStyle(totalStyle);
+        totalAmountCell.setCellStyle(totalStyle);
+
+        return total;
+    }
+
+    /**
+     * Full history: hot + archived rows, newest first
+     */
+    private List<WalletActivityDTO> withArchived(List<WalletActivityDTO> activities, List<WalletActivityDTO> archived) {
+        if (archived.isEmpty()) {
+            return activities;
+        }
+        List<WalletActivityDTO> all = new ArrayList<>(activities.size() + archived.size());
+        all.addAll(activities);
+        all.addAll(archived);
+        all.sort(Comparator.comparing(WalletActivityDTO::getCreatedAt)
+                .thenComparing(WalletActivityDTO::getId).reversed());
+        return all;
+    }
+
+    /**
+     * Writes the wallet activity sheet (deposits, withdrawals, transfers)
+     */
+    private void writeWalletActivitySheet(Workbook workbook, List<WalletActivityDTO> activities) {
+        Sheet sheet = workbook.createSheet("Wallet Activity");
+        writeHeader(workbook, sheet, IndexedColors.LIGHT_CORNFLOWER_BLUE,
+                new String[]{"Date", "Wallet", "Type", "Amount", "Related Wallet ID"});
+
+        int rowNum = 1;
+        for (WalletActivityDTO activity : activities) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(activity.getCreatedAt().format(DATE_TIME_FORMAT));
+            row.createCell(1).setCellValue(activity.getWalletType() != null ? activity.getWalletType() : "Unknown Wallet");
+            row.createCell(2).setCellValue(activity.getType());
+            row.createCell(3).setCellValue(activity.getAmount().doubleValue());
+            if (activity.getRelatedWalletId() != null) {
+                row.createCell(4).setCellValue(activity.getRelatedWalletId());
             }
+        }
+    }
 
-        } catch (Exception e) {
-            log.error("❌ Error generating Excel for profile {}: {}", profileId, e.getMessage());
-            throw new RuntimeException("Failed to generate Excel", e);
+    /**
+     * Writes the summary sheet with totals across the other sheets
+     */
+    private void writeSummarySheet(Workbook workbook, int incomeCount, double totalIncome,
+                                   int expenseCount, double totalExpense, List<WalletActivityDTO> activities) {
+        // Net wallet movement per activity type
+        Map<String, Double> walletTotals = new LinkedHashMap<>();
+        for (String type : new String[]{"DEPOSIT", "WITHDRAW", "TRANSFER_IN", "TRANSFER_OUT"}) {
+            walletTotals.put(type, 0.0);
+        }
+        for (WalletActivityDTO activity : activities) {
+            walletTotals.merge(activity.getType(), activity.getAmount().doubleValue(), Double::sum);
+        }
+
+        Sheet sheet = workbook.createSheet("Summary");
+        writeHeader(workbook, sheet, IndexedColors.GREY_25_PERCENT, new String[]{"Item", "Count", "Amount"});
+
+        int rowNum = 1;
+        rowNum = writeSummaryRow(sheet, rowNum, "Total Income", incomeCount, totalIncome);
+        rowNum = writeSummaryRow(sheet, rowNum, "Total Expense", expenseCount, totalExpense);
+        rowNum = writeSummaryRow(sheet, rowNum, "Net (Income - Expense)", null, totalIncome - totalExpense);
+        rowNum++;
+        rowNum = writeSummaryRow(sheet, rowNum, "Wallet Activities", activities.size(), null);
+        for (Map.Entry<String, Double> entry : walletTotals.entrySet()) {
+            rowNum = writeSummaryRow(sheet, rowNum, "Wallet " + entry.getKey(), null, entry.getValue());
         }
+
+        Row generatedRow = sheet.createRow(rowNum + 1);
+        generatedRow.createCell(0).setCellValue("Generated");
+        generatedRow.createCell(2).setCellValue(LocalDateTime.now().format(DATE_TIME_FORMAT));
+        generatedRow.getCell(0).setCellStyle(boldStyle(workbook));
+    }
+
+    private int writeSummaryRow(Sheet sheet, int rowNum, String label, Integer count, Double amount) {
+        Row row = sheet.createRow(rowNum);
+        row.createCell(0).setCellValue(label);
+        if (count != null) {
+            row.createCell(1).setCellValue(count);
+        }
+        if (amount != null) {
+            row.createCell(2).setCellValue(amount);
+        }
+        return rowNum + 1;
+    }
+
+    private void writeHeader(Workbook workbook, Sheet sheet, IndexedColors color, String[] headers) {
+        // Header style
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font headerFont = workbook.createFont();
+        headerFont.setBold(true);
+        headerFont.setFontHeightInPoints((short) 12);
+        headerStyle.setFont(headerFont);
+        headerStyle.setFillForegroundColor(color.getIndex());
+        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+        // Header row
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headers.length; i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers[i]);
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, 25 * 256);
+        }
+    }
+
+    private CellStyle boldStyle(Workbook workbook) {
+        CellStyle style = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(true);
+        style.setFont(font);
+        return style;
     }
 
     /**
@@ -228,4 +368,35 @@ public class ExcelService {
 
         log.info("✅ Expense email sent to: {}", userEmail);
     }
+
+    /**
+     * Send the full financial statement via email
+     */
+    public void sendStatementEmail(String userEmail, Long profileId) {
+        // Generate Excel
+        byte[] excelBytes = generateStatementExcel(profileId);
+
+        // Create email body
+        String emailBody = """
+            <html>
+            <body style="font-family: Arial, sans-serif;">
+                <h2 style="color: #3B82F6;">Your Financial Statement</h2>
+                <p>Hello,</p>
+                <p>Please find your full financial statement (income, expenses and wallet activity) attached to this email.</p>
+                <p>Best regards,<br><strong>EquiTrack Team</strong></p>
+            </body>
+            </html>
+            """;
+
+        // Send email with attachment
+        emailService.sendEmailWithExcel(
+                userEmail,
+                "Your Financial Statement",
+                emailBody,
+                excelBytes,
+                "financial_statement.xlsx"
+        );
+
+        log.info("✅ Statement email sent to: {}", userEmail);
+    }
 }
\ No newline at end of file
@@ -6,9 +6,11 @@ import io.equitrack.entity.ExpenseEntity;
 import io.equitrack.entity.ProfileEntity;
 import io.equitrack.repository.CategoryRepository;
 import io.equitrack.repository.ExpenseRepository;
+import io.equitrack.repository.ProfileRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -21,9 +23,11 @@ public class ExpenseService {
     // Database access for categories and expenses
     private final CategoryRepository categoryRepository;
     private final ExpenseRepository expenseRepository;
+    private final ProfileRepository profileRepository;
 
     // User context and security
     private final ProfileService profileService;
+    private final ActivityBitmapService activityBitmapService;
 
     //--- HELPER METHODS: DATA TRANSFORMATION ---
 
@@ -69,6 +73,7 @@ public class ExpenseService {
      * - Must link to valid category
      * - Automatic user context from security
      */
+    @Transactional
     public ExpenseDTO addExpense(ExpenseDTO dto){
         ProfileEntity profile = profileService.getCurrentProfile();
         CategoryEntity category = categoryRepository.findById(dto.getCategoryId())
@@ -76,6 +81,8 @@ public class ExpenseService {
 
         ExpenseEntity newExpense = toEntity(dto, profile, category);
         newExpense = expenseRepository.save(newExpense);
+        profileRepository.incrementExpenseDataVersion(profile.getId());  // Invalidate cached expense exports
+        activityBitmapService.recordActivity(profile);  // Skips today's reminder for this user
         return toDTO(newExpense);
     }
 
@@ -99,6 +106,7 @@ public class ExpenseService {
      * DELETE EXPENSE WITH OWNERSHIP VERIFICATION
      * Security: User can only delete their own expenses
      */
+    @Transactional
     public void deleteExpense(Long expenseId){
         ProfileEntity profile = profileService.getCurrentProfile();
         ExpenseEntity entity = expenseRepository.findById(expenseId)
@@ -109,6 +117,7 @@ public class ExpenseService {
             throw new RuntimeException("Unauthorized to delete this expense!");
         }
         expenseRepository.delete(entity);
+        profileRepository.incrementExpenseDataVersion(profile.getId());  // Invalidate cached expense exports
     }
 
     /**
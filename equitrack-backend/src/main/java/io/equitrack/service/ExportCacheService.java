@@ -0,0 +1,187 @@
+package io.equitrack.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * LOCAL DISK CACHE FOR GENERATED EXCEL EXPORTS
+ *
+ * Generated workbooks are stored as files keyed by (export type, profile, data version).
+ * The data version is bumped by the write paths, so an unchanged data set maps to the same
+ * file and is served without touching POI. The directory is capped in size and evicts the
+ * least recently used files first.
+ */
+@Service
+@Slf4j
+public class ExportCacheService {
+
+    // Directory where cached workbooks are written
+    @Value("${equitrack.export.cache.dir:${java.io.tmpdir}/equitrack-export-cache}")
+    private String cacheDir;
+
+    // Upper bound for the total size of the cache directory
+    @Value("${equitrack.export.cache.max-bytes:268435456}")
+    private long maxBytes;
+
+    private Path root;
+
+    // File name -> size in bytes, kept in access order so the eldest entry is the LRU one
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * Rebuilds the LRU index from whatever the previous run left on disk
+     */
+    @PostConstruct
+    void init() throws IOException {
+        root = Paths.get(cacheDir);
+        Files.createDirectories(root);
+
+        List<Path> existing = new ArrayList<>();
+        try (Stream<Path> files = Files.list(root)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".xlsx")) {
+                    existing.add(path);
+                } else if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(path);  // Half-written file from a crashed run
+                }
+            }
+        }
+        existing.sort(Comparator.comparing(this::lastModified));
+
+        synchronized (entries) {
+            for (Path path : existing) {
+                long size = Files.size(path);
+                entries.put(path.getFileName().toString(), size);
+                totalBytes += size;
+            }
+            evictOverflow();
+        }
+        log.info("📦 Export cache ready at {} ({} files, {} bytes)", root, entries.size(), totalBytes);
+    }
+
+    /**
+     * Returns the cached workbook for this key, or generates and stores it on a miss
+     *
+     * @param profileId  Owner of the export
+     * @param exportType Export name (e.g. "income", "expense")
+     * @param version    Data version the caller read BEFORE generating
+     * @param generator  Builds the workbook bytes on a cache miss
+     */
+    public byte[] getOrGenerate(Long profileId, String exportType, String version, Supplier<byte[]> generator) {
+        String fileName = exportType + "-" + profileId + "-" + version + ".xlsx";
+
+        byte[] cached = read(fileName);
+        if (cached != null) {
+            log.info("📦 Export cache hit: {}", fileName);
+            return cached;
+        }
+
+        byte[] bytes = generator.get();
+        store(exportType + "-" + profileId + "-", fileName, bytes);
+        return bytes;
+    }
+
+    private byte[] read(String fileName) {
+        synchronized (entries) {
+            if (entries.get(fileName) == null) {
+                return null;
+            }
+        }
+        Path path = root.resolve(fileName);
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return bytes;
+        } catch (NoSuchFileException e) {
+            // Evicted between the index lookup and the read - treat as a miss
+            forget(fileName);
+            return null;
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to read cached export {}: {}", fileName, e.getMessage());
+            return null;
+        }
+    }
+
+    private void store(String keyPrefix, String fileName, byte[] bytes) {
+        Path target = root.resolve(fileName);
+        try {
+            Path temp = Files.createTempFile(root, "export-", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Caching is best effort - the caller still gets the generated bytes
+            log.warn("⚠️ Failed to cache export {}: {}", fileName, e.getMessage());
+            return;
+        }
+
+        synchronized (entries) {
+            Long previous = entries.put(fileName, (long) bytes.length);
+            totalBytes += bytes.length - (previous != null ? previous : 0L);
+
+            // Older versions of the same export can never be served again
+            Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getKey().startsWith(keyPrefix) && !entry.getKey().equals(fileName)) {
+                    delete(entry.getKey());
+                    totalBytes -= entry.getValue();
+                    it.remove();
+                }
+            }
+            evictOverflow();
+        }
+    }
+
+    // Must be called while holding the entries lock
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            delete(eldest.getKey());
+            totalBytes -= eldest.getValue();
+            it.remove();
+            log.info("🧹 Evicted cached export: {}", eldest.getKey());
+        }
+    }
+
+    private void forget(String fileName) {
+        synchronized (entries) {
+            Long size = entries.remove(fileName);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    private void delete(String fileName) {
+        try {
+            Files.deleteIfExists(root.resolve(fileName));
+        } catch (IOException e) {
+            log.warn("⚠️ Failed to delete cached export {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    private FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
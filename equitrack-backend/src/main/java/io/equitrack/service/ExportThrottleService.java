@@ -0,0 +1,146 @@
+package io.equitrack.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * CONCURRENCY CONTROL FOR EXCEL EXPORTS
+ *
+ * - Single-flight: concurrent requests for the same export key share one generation
+ * - Permits: caps how many POI generations run at once on this node; callers that
+ *   cannot get a permit in time are rejected with ExportBusyException (HTTP 429)
+ */
+@Service
+@Slf4j
+public class ExportThrottleService {
+
+    // Export key -> generation currently running for it
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private final Semaphore permits;
+    private final long maxQueueWaitMs;
+    private final int retryAfterSeconds;
+
+    // Metrics
+    private final Timer queueWaitTimer;
+    private final Timer generationTimer;
+    private final Counter rejectedCounter;
+    private final Counter coalescedCounter;
+
+    public ExportThrottleService(MeterRegistry meterRegistry,
+                                 @Value("${equitrack.export.max-concurrent:4}") int maxConcurrent,
+                                 @Value("${equitrack.export.max-queue-wait-ms:2000}") long maxQueueWaitMs,
+                                 @Value("${equitrack.export.retry-after-seconds:5}") int retryAfterSeconds) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxQueueWaitMs = maxQueueWaitMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        this.queueWaitTimer = Timer.builder("equitrack.export.queue.wait")
+                .description("Time spent waiting for an export permit")
+                .register(meterRegistry);
+        this.generationTimer = Timer.builder("equitrack.export.generation")
+                .description("Time spent generating a workbook")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("equitrack.export.rejected")
+                .description("Exports rejected because all permits were busy")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("equitrack.export.coalesced")
+                .description("Export requests that joined an in-flight generation")
+                .register(meterRegistry);
+        meterRegistry.gauge("equitrack.export.active", permits, p -> maxConcurrent - p.availablePermits());
+    }
+
+    /**
+     * Runs the task once per key at a time - callers arriving while it runs get the same result
+     */
+    public byte[] coalesce(String key, Supplier<byte[]> task) {
+        CompletableFuture<byte[]> mine = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, mine);
+
+        if (running != null) {
+            coalescedCounter.increment();
+            log.info("🔗 Joining in-flight export: {}", key);
+            return await(running);
+        }
+
+        try {
+            mine.complete(task.get());
+        } catch (Throwable t) {
+            // Complete on every failure so joined callers never wait forever
+            mine.completeExceptionally(t);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+        return await(mine);
+    }
+
+    /**
+     * Runs the generation while holding one of the node-wide export permits
+     *
+     * @throws ExportBusyException if no permit frees up within the queue wait limit
+     */
+    public byte[] withPermit(Supplier<byte[]> generation) {
+        long waitStart = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxQueueWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        queueWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            rejectedCounter.increment();
+            log.warn("🚦 Export rejected - no permit freed up within {} ms", maxQueueWaitMs);
+            throw new ExportBusyException(retryAfterSeconds);
+        }
+
+        try {
+            return generationTimer.record(generation);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private byte[] await(CompletableFuture<byte[]> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Thrown when the node is already running its maximum number of exports
+     */
+    @Getter
+    public static class ExportBusyException extends RuntimeException {
+
+        // Seconds the client should wait before retrying (sent as Retry-After)
+        private final int retryAfterSeconds;
+
+        public ExportBusyException(int retryAfterSeconds) {
+            super("Too many exports in progress, please retry in " + retryAfterSeconds + " seconds");
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+}
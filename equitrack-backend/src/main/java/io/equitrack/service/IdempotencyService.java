@@ -0,0 +1,309 @@
+package io.equitrack.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.equitrack.entity.IdempotencyKeyEntity;
+import io.equitrack.repository.IdempotencyKeyRepository;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * IDEMPOTENCY KEYS FOR WALLET MUTATIONS
+ *
+ * Clients send an Idempotency-Key header with deposit / withdraw / transfer. The first request
+ * reserves the key in tbl_idempotency_keys, then runs the mutation and stores its response in ONE
+ * transaction - either both commit or neither does, so a crash can never leave money moved with
+ * no response to replay. A retry with the same key and the same parameters gets that response
+ * back without touching any wallet.
+ * - Keys are scoped to the calling profile; two users may pick the same key
+ * - Completed responses are also kept in a node-local LRU, so hot retries skip the database
+ * - A key reused with different parameters is rejected (422)
+ * - A retry while the first request is still running is rejected (409) - it never runs twice
+ * - A reservation left IN_PROGRESS longer than in-progress-timeout-seconds (its owner died
+ *   before committing) is taken over by the next retry; the owner token stops the original
+ *   from completing it too
+ * - A request that fails releases its key, so the client can retry it
+ * Expired keys are deleted by a background sweep.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // The stored key is "<profile id>:<key>" in a 100 character column
+    private static final int MAX_KEY_LENGTH = 80;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ProfileService profileService;
+    private final TransactionRetry transactionRetry;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${equitrack.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${equitrack.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${equitrack.idempotency.in-progress-timeout-seconds:60}")
+    private long inProgressTimeoutSeconds;
+
+    // Key -> completed response, kept in access order so the eldest entry is the LRU one
+    private final LinkedHashMap<String, StoredResponse> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                              ProfileService profileService,
+                              TransactionRetry transactionRetry,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.profileService = profileService;
+        this.transactionRetry = transactionRetry;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Runs the action once per key; replays its stored response for retries
+     *
+     * @param key        - Idempotency-Key header value; null or blank runs the action unguarded
+     * @param operation  - Endpoint name, part of the request hash
+     * @param parameters - Request parameters that must match on a retry
+     * @param action     - The mutation; runs in the transaction that stores its response.
+     *                     Exceptions propagate and release the key
+     * @throws IdempotencyConflictException if the key is in use by another request
+     */
+    public ResponseEntity<?> execute(String key, String operation, Object[] parameters,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = requestHash(operation, parameters);
+        String scopedKey = profileService.getCurrentProfile().getId() + ":" + key;
+
+        Optional<StoredResponse> cached = cached(scopedKey);
+        if (cached.isPresent()) {
+            return replay(key, cached.get(), requestHash);
+        }
+
+        String ownerToken = UUID.randomUUID().toString();
+        if (!reserve(scopedKey, operation, requestHash, ownerToken)) {
+            StoredResponse stored = storedResponse(scopedKey);
+            if (stored.status() != 0 || !stored.requestHash().equals(requestHash)
+                    || !takeOver(scopedKey, requestHash, ownerToken)) {
+                return replay(key, stored, requestHash);
+            }
+            log.warn("♻️ Took over stale {} {} - its first request never committed", HEADER, key);
+        }
+
+        StoredResponse[] stored = new StoredResponse[1];
+        ResponseEntity<?> response;
+        try {
+            response = transactionRetry.execute(operation, tx -> {
+                ResponseEntity<?> result = action.get();
+                if (!result.getStatusCode().is2xxSuccessful()) {
+                    tx.setRollbackOnly();
+                    return result;
+                }
+                stored[0] = snapshot(result, requestHash);
+                int updated = idempotencyKeyRepository.complete(scopedKey, ownerToken, IdempotencyKeyEntity.STATUS_COMPLETED,
+                        stored[0].status(), stored[0].contentType(), stored[0].body());
+                if (updated == 0) {
+                    // We ran past the in-progress timeout and a retry took the key over -
+                    // roll back so the mutation is applied by exactly one of us
+                    throw new IdempotencyConflictException(HttpStatus.CONFLICT,
+                            "A request with this " + HEADER + " is still being processed");
+                }
+                return result;
+            });
+        } catch (RuntimeException e) {
+            release(scopedKey, ownerToken);
+            throw e;
+        }
+        if (stored[0] == null) {
+            release(scopedKey, ownerToken);
+            return response;
+        }
+
+        synchronized (cache) {
+            cache.put(scopedKey, stored[0]);
+        }
+        return response;
+    }
+
+    /**
+     * Deletes expired keys (every node runs it; the DELETE is harmless to repeat)
+     */
+    @Scheduled(fixedDelayString = "${equitrack.idempotency.sweep-interval-ms:3600000}")
+    public void sweepExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer deleted = transactionTemplate.execute(tx -> idempotencyKeyRepository.deleteExpired(now));
+        synchronized (cache) {
+            cache.values().removeIf(stored -> stored.expiresAt().isBefore(now));
+        }
+        if (deleted != null && deleted > 0) {
+            log.info("🧹 Deleted {} expired idempotency keys", deleted);
+        }
+    }
+
+    private Optional<StoredResponse> cached(String key) {
+        synchronized (cache) {
+            StoredResponse stored = cache.get(key);
+            if (stored != null && stored.expiresAt().isBefore(LocalDateTime.now())) {
+                cache.remove(key);
+                return Optional.empty();
+            }
+            return Optional.ofNullable(stored);
+        }
+    }
+
+    // true if this request now owns the key
+    private boolean reserve(String key, String operation, String requestHash, String ownerToken) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                // An expired key that the sweep has not deleted yet is free again
+                idempotencyKeyRepository.findById(key)
+                        .filter(row -> row.getExpiresAt().isBefore(now))
+                        .ifPresent(idempotencyKeyRepository::delete);
+                idempotencyKeyRepository.flush();
+                idempotencyKeyRepository.reserve(key, operation, requestHash,
+                        IdempotencyKeyEntity.STATUS_IN_PROGRESS, ownerToken, now, now.plusHours(ttlHours));
+            });
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;  // Key already taken
+        }
+    }
+
+    // true if the key was IN_PROGRESS past the timeout and this request now owns it
+    private boolean takeOver(String key, String requestHash, String ownerToken) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(tx -> idempotencyKeyRepository.takeOver(key, requestHash,
+                ownerToken, now, now.minusSeconds(inProgressTimeoutSeconds)));
+        return updated != null && updated > 0;
+    }
+
+    private StoredResponse storedResponse(String key) {
+        IdempotencyKeyEntity row = idempotencyKeyRepository.findById(key)
+                .orElseThrow(() -> new IdempotencyConflictException(HttpStatus.CONFLICT,
+                        "A request with this " + HEADER + " just finished, please retry"));
+        if (!IdempotencyKeyEntity.STATUS_COMPLETED.equals(row.getStatus())) {
+            return new StoredResponse(row.getRequestHash(), 0, null, null, row.getExpiresAt());
+        }
+        StoredResponse stored = new StoredResponse(row.getRequestHash(), row.getResponseStatus(),
+                row.getResponseContentType(), row.getResponseBody(), row.getExpiresAt());
+        synchronized (cache) {
+            cache.put(key, stored);
+        }
+        return stored;
+    }
+
+    private ResponseEntity<?> replay(String key, StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " was already used with a different request");
+        }
+        if (stored.status() == 0) {
+            throw new IdempotencyConflictException(HttpStatus.CONFLICT,
+                    "A request with this " + HEADER + " is still being processed");
+        }
+        log.info("🔁 Replaying stored response for {} {}", HEADER, key);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status())
+                .header(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            builder.contentType(MediaType.parseMediaType(stored.contentType()));
+        }
+        return builder.body(stored.body());
+    }
+
+    private void release(String key, String ownerToken) {
+        transactionTemplate.executeWithoutResult(tx -> idempotencyKeyRepository.release(key, ownerToken));
+    }
+
+    private StoredResponse snapshot(ResponseEntity<?> response, String requestHash) {
+        Object body = response.getBody();
+        String contentType;
+        String text;
+        if (body == null || body instanceof String) {
+            contentType = MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8";
+            text = (String) body;
+        } else {
+            contentType = MediaType.APPLICATION_JSON_VALUE;
+            try {
+                text = objectMapper.writeValueAsString(body);
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Failed to store response for replay", e);
+            }
+        }
+        return new StoredResponse(requestHash, response.getStatusCode().value(), contentType, text,
+                LocalDateTime.now().plusHours(ttlHours));
+    }
+
+    private String requestHash(String operation, Object[] parameters) {
+        StringBuilder canonical = new StringBuilder(operation);
+        for (Object parameter : parameters) {
+            canonical.append('|');
+            // 100 and 100.00 are the same amount
+            canonical.append(parameter instanceof BigDecimal amount
+                    ? amount.stripTrailingZeros().toPlainString()
+                    : String.valueOf(parameter));
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // status 0 = the owning request has not finished yet
+    private record StoredResponse(String requestHash, int status, String contentType, String body,
+                                  LocalDateTime expiresAt) {}
+
+    /**
+     * Thrown when a key cannot be used for this request right now
+     */
+    @Getter
+    public static class IdempotencyConflictException extends RuntimeException {
+
+        // 409 while the first request runs, 422 for a key reused with other parameters
+        private final HttpStatus status;
+
+        public IdempotencyConflictException(HttpStatus status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
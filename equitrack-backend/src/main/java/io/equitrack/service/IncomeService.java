@@ -6,9 +6,11 @@ import io.equitrack.entity.IncomeEntity;
 import io.equitrack.entity.ProfileEntity;
 import io.equitrack.repository.CategoryRepository;
 import io.equitrack.repository.IncomeRepository;
+import io.equitrack.repository.ProfileRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -22,9 +24,11 @@ public class IncomeService {
     // Database access for categories and incomes
     private final CategoryRepository categoryRepository;
     private final IncomeRepository incomeRepository;
+    private final ProfileRepository profileRepository;
 
     // User context and security
     private final ProfileService profileService;
+    private final ActivityBitmapService activityBitmapService;
 
     //--- HELPER METHODS: DATA TRANSFORMATION ---
 
@@ -70,6 +74,7 @@ public class IncomeService {
      * - Must link to valid category
      * - Automatic user context from security
      */
+    @Transactional
     public IncomeDTO addIncome(IncomeDTO dto){
         ProfileEntity profile = profileService.getCurrentProfile();
         CategoryEntity category = categoryRepository.findById(dto.getCategoryId())
@@ -77,6 +82,8 @@ public class IncomeService {
 
         IncomeEntity newIncome = toEntity(dto, profile, category);
         newIncome = incomeRepository.save(newIncome);
+        profileRepository.incrementIncomeDataVersion(profile.getId());  // Invalidate cached income exports
+        activityBitmapService.recordActivity(profile);  // Skips today's reminder for this user
         return toDTO(newIncome);
     }
 
@@ -100,6 +107,7 @@ public class IncomeService {
      * DELETE INCOME WITH OWNERSHIP VERIFICATION
      * Security: User can only delete their own incomes
      */
+    @Transactional
     public void deleteIncome(Long incomeId){
         ProfileEntity profile = profileService.getCurrentProfile();
         IncomeEntity entity = incomeRepository.findById(incomeId)
@@ -110,6 +118,7 @@ public class IncomeService {
             throw new RuntimeException("Unauthorized to delete this income!");
         }
         incomeRepository.delete(entity);
+        profileRepository.incrementIncomeDataVersion(profile.getId());  // Invalidate cached income exports
     }
 
     /**
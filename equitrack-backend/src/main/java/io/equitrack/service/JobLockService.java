@@ -0,0 +1,209 @@
+package io.equitrack.service;
+
+import io.equitrack.entity.JobLockEntity;
+import io.equitrack.repository.JobLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * CLUSTER-WIDE LOCKS FOR SCHEDULED JOBS (tbl_job_locks)
+ *
+ * Every node fires the same @Scheduled methods; runExclusive makes sure only one of them
+ * actually runs a given occurrence:
+ * - the winner extends its lease with heartbeats while the job runs and marks the occurrence
+ *   DONE (or FAILED) at the end
+ * - a node that loses the race checks back when the lease expires, and takes the occurrence
+ *   over if the holder stopped heart-beating (crashed or was killed)
+ * - a FAILED occurrence is retried after retry.delay-seconds, up to retry.max-attempts runs in
+ *   total; checkpointed jobs (BatchJobRunner) resume where the failed run stopped
+ */
+@Service
+@Slf4j
+public class JobLockService {
+
+    private static final String NO_OCCURRENCE = "-";
+
+    private final JobLockRepository jobLockRepository;
+    private final TaskScheduler taskScheduler;
+    private final TransactionTemplate requiresNew;
+
+    // Unique per process, so two instances on one host never share ownership
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName()
+            + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+    @Value("${equitrack.jobs.lock.lease-seconds:120}")
+    private long leaseSeconds;
+
+    @Value("${equitrack.jobs.lock.heartbeat-seconds:30}")
+    private long heartbeatSeconds;
+
+    // Runs allowed per occurrence, counting the first one
+    @Value("${equitrack.jobs.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${equitrack.jobs.retry.delay-seconds:300}")
+    private long retryDelaySeconds;
+
+    public JobLockService(JobLockRepository jobLockRepository,
+                          TaskScheduler taskScheduler,
+                          PlatformTransactionManager transactionManager) {
+        this.jobLockRepository = jobLockRepository;
+        this.taskScheduler = taskScheduler;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Runs the task if this node wins the lock for (jobName, occurrence)
+     *
+     * @param jobName    - Stable job identifier
+     * @param occurrence - Identifies one scheduled run (e.g. the run date); each one runs once
+     * @param task       - The job body
+     * @return true if this node ran the task now
+     */
+    public boolean runExclusive(String jobName, String occurrence, Runnable task) {
+        ensureRow(jobName);
+
+        if (!acquire(jobName, occurrence)) {
+            scheduleTakeoverCheck(jobName, occurrence, task);
+            return false;
+        }
+        return runLocked(jobName, occurrence, task);
+    }
+
+    // Runs the task while this node holds the lock, then releases it as DONE or FAILED
+    private boolean runLocked(String jobName, String occurrence, Runnable task) {
+        log.info("🔐 {} [{}] locked by {}", jobName, occurrence, nodeId);
+        ScheduledFuture<?> heartbeat = taskScheduler.scheduleAtFixedRate(
+                () -> heartbeat(jobName, occurrence), Duration.ofSeconds(heartbeatSeconds));
+        String finalStatus = JobLockEntity.STATUS_FAILED;
+        try {
+            task.run();
+            finalStatus = JobLockEntity.STATUS_DONE;
+            return true;
+        } finally {
+            heartbeat.cancel(false);
+            String status = finalStatus;
+            requiresNew.executeWithoutResult(tx ->
+                    jobLockRepository.release(jobName, occurrence, nodeId, status, LocalDateTime.now()));
+            log.info("🔓 {} [{}] released as {}", jobName, occurrence, status);
+            if (JobLockEntity.STATUS_FAILED.equals(status)) {
+                scheduleRetry(jobName, occurrence, task);
+            }
+        }
+    }
+
+    /**
+     * Latest occurrence of the job that finished DONE, if any
+     * Stable while the caller holds the lock - only lock holders write it
+     */
+    public Optional<String> lastCompletedOccurrence(String jobName) {
+        return jobLockRepository.findById(jobName).map(JobLockEntity::getLastCompleted);
+    }
+
+    private boolean acquire(String jobName, String occurrence) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = requiresNew.execute(tx ->
+                jobLockRepository.tryAcquire(jobName, occurrence, nodeId, now, now.plusSeconds(leaseSeconds), maxAttempts));
+        return updated != null && updated == 1;
+    }
+
+    /**
+     * Failure path: run the same occurrence again later. tryResume only matches while the row
+     * is still this occurrence, FAILED, with attempts left - so a retry never races a newer
+     * occurrence, and a node that already resumed it makes the others' retries no-ops.
+     */
+    private void scheduleRetry(String jobName, String occurrence, Runnable task) {
+        Instant retryAt = Instant.now().plusSeconds(retryDelaySeconds);
+        try {
+            taskScheduler.schedule(() -> {
+                try {
+                    LocalDateTime now = LocalDateTime.now();
+                    Integer resumed = requiresNew.execute(tx -> jobLockRepository.tryResume(
+                            jobName, occurrence, nodeId, now, now.plusSeconds(leaseSeconds), maxAttempts));
+                    if (resumed == null || resumed == 0) {
+                        log.info("⏭️ {} [{}] not retried - finished, superseded or out of attempts", jobName, occurrence);
+                        return;
+                    }
+                    log.info("🔁 Retrying {} [{}]", jobName, occurrence);
+                    runLocked(jobName, occurrence, task);
+                } catch (Exception e) {
+                    log.error("❌ Retry of {} [{}] failed: {}", jobName, occurrence, e.getMessage());
+                }
+            }, retryAt);
+            log.info("⏰ {} [{}] will be retried at {}", jobName, occurrence, retryAt);
+        } catch (TaskRejectedException e) {
+            // Shutting down - the next scheduled occurrence picks the work up instead
+        }
+    }
+
+    private void heartbeat(String jobName, String occurrence) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Integer updated = requiresNew.execute(tx ->
+                    jobLockRepository.heartbeat(jobName, occurrence, nodeId, now, now.plusSeconds(leaseSeconds)));
+            if (updated == null || updated == 0) {
+                log.warn("⚠️ {} [{}] lock lost by {} - another node may take over", jobName, occurrence, nodeId);
+            }
+        } catch (Exception e) {
+            log.error("❌ Heartbeat for {} [{}] failed: {}", jobName, occurrence, e.getMessage());
+        }
+    }
+
+    /**
+     * Loser path: if another node is still running this occurrence, look again right after
+     * its lease expires. A live holder will have extended the lease by then, so the check
+     * simply re-schedules itself; a dead one is replaced.
+     */
+    private void scheduleTakeoverCheck(String jobName, String occurrence, Runnable task) {
+        Optional<JobLockEntity> lock = jobLockRepository.findById(jobName);
+        if (lock.isEmpty()
+                || !occurrence.equals(lock.get().getOccurrence())
+                || !JobLockEntity.STATUS_RUNNING.equals(lock.get().getStatus())) {
+            // Occurrence already finished, or an older run is still going - nothing to watch
+            log.info("⏭️ {} [{}] skipped on {}", jobName, occurrence, nodeId);
+            return;
+        }
+
+        Instant checkAt = lock.get().getLeaseUntil()
+                .atZone(ZoneId.systemDefault()).toInstant()
+                .plusSeconds(1);
+        log.info("👀 {} [{}] held by {} - checking again at {}", jobName, occurrence, lock.get().getOwner(), checkAt);
+        taskScheduler.schedule(() -> {
+            try {
+                runExclusive(jobName, occurrence, task);
+            } catch (Exception e) {
+                log.error("❌ Takeover of {} [{}] failed: {}", jobName, occurrence, e.getMessage());
+            }
+        }, checkAt);
+    }
+
+    // First run of a job anywhere in the cluster creates its (idle) lock row
+    private void ensureRow(String jobName) {
+        if (jobLockRepository.existsById(jobName)) {
+            return;
+        }
+        try {
+            requiresNew.executeWithoutResult(tx ->
+                    jobLockRepository.insertIdle(jobName, NO_OCCURRENCE, JobLockEntity.STATUS_DONE, LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created it first
+        }
+    }
+}
@@ -1,102 +1,375 @@
 package io.equitrack.service;
 
-import io.equitrack.dto.ExpenseDTO;
+import io.equitrack.dto.EmailRecipientDTO;
+import io.equitrack.dto.DailyExpenseRowDTO;
+import io.equitrack.dto.IdRangeDTO;
+import io.equitrack.dto.ProfileSummaryDTO;
 import io.equitrack.entity.ProfileEntity;
+import io.equitrack.repository.BatchPartitionRepository;
 import io.equitrack.repository.ExpenseRepository;
 import io.equitrack.repository.ProfileRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
+/**
+ * PER-USER SCHEDULED EMAILS (TIME-WHEEL DISPATCH)
+ *
+ * Every user has a timezone, a notify hour and a notify minute. Once a minute the dispatcher
+ * works out, for each timezone in use, which local (hour, minute) slot is due and sends:
+ * - the daily reminder to users whose slot is (hour, minute)
+ * - the expense summary to users whose slot was one hour earlier
+ * Users are spread across the 60 minutes of their hour, so each minute's bucket is about
+ * 1/60 of the users of that hour instead of everyone at 10:00 sharp.
+ * Users who already logged an income or expense today are left out of the reminder.
+ *
+ * Each (local slot, timezone) is a BatchJobRunner run: every chunk's outbox rows commit with
+ * the slot's checkpoint, so a replayed minute (failed run, lock takeover) skips slots and chunks
+ * that were already queued instead of emailing those users twice.
+ *
+ * Slots are local wall-clock times, so daylight saving changes are resolved explicitly: a slot in
+ * the hour skipped by the spring-forward change is sent at the first minute after the gap, and a
+ * slot in the hour repeated in autumn is sent only on its first (earlier offset) pass.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j  // Logger for tracking notification operations
 public class NotificationService {
 
+    private static final String DISPATCH_JOB = "notification-dispatch";
+    private static final String REMINDER_JOB = "notification-reminder";
+    private static final String SUMMARY_JOB = "notification-summary";
+
+    // Slot occurrence = profile-local date and slot + timezone, e.g. 202610190931|Asia/Manila
+    // (fits the 50-char column); the same local slot is one occurrence even if its hour repeats
+    private static final DateTimeFormatter SLOT_MINUTE = DateTimeFormatter.ofPattern("yyyyMMddHHmm");
+
     // Database access for users and expenses
     private final ProfileRepository profileRepository;
     private final EmailService emailService;
-    private final ExpenseService expenseService;
+    private final ExpenseRepository expenseRepository;
+    // Cluster-wide lock so only one node dispatches each minute
+    private final JobLockService jobLockService;
+    // Who already logged something today - they get no reminder
+    private final ActivityBitmapService activityBitmapService;
+    private final MeterRegistry meterRegistry;
+    // Runs each slot chunk by chunk with checkpoints
+    private final BatchJobRunner batchJobRunner;
+    private final BatchPartitionRepository batchPartitionRepository;
 
     // Frontend URL for email links (from application.properties)
     @Value("${equitrack.frontend.url}")
     private String frontEndUrl;
 
+    // Users loaded per chunk within one slot
+    @Value("${equitrack.notification.chunk-size:1000}")
+    private int chunkSize;
+
+    // How many missed minutes are replayed after downtime
+    @Value("${equitrack.notification.catch-up-minutes:180}")
+    private int catchUpMinutes;
+
+    // Finished slot runs are kept this long (must cover the catch-up window)
+    @Value("${equitrack.notification.history-hours:48}")
+    private long historyHours;
+
+    // Distinct user timezones, refreshed every few minutes
+    private volatile List<String> timezones = List.of();
+    private volatile Instant timezonesLoadedAt = Instant.EPOCH;
+
     /**
-     * DAILY REMINDER NOTIFICATION - SCHEDULED TASK
-     * Sends reminder to ALL users to track their finances
+     * Gives accounts created before per-user scheduling the default zone and hour,
+     * spread over the hour by id
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillNotificationSchedule(){
+        int updated = profileRepository.backfillNotificationSchedule(
+                ProfileEntity.DEFAULT_TIMEZONE, ProfileEntity.DEFAULT_NOTIFY_HOUR);
+        if(updated > 0){
+            log.info("🕒 Assigned notification schedule to {} existing profiles", updated);
+        }
+    }
+
+    /**
+     * TIME-WHEEL TICK - SCHEDULED TASK
+     * Dispatches every minute since the last completed tick (capped by catch-up-minutes),
+     * so minutes missed while no node was running are still sent
      *
-     * Scheduled to run daily at 10:00 AM Manila time
      * Cron format: second minute hour day month day-of-week
      */
-    //@Scheduled(cron = "0 * * * * *", zone = "Asia/Manila")  // TEST: Every minute
-    @Scheduled(cron = "0 0 10 * * *", zone = "Asia/Manila")  // PROD: Daily at 10:00 AM
-    public void sendDailyIncomeExpenseReminder(){
-        log.info("Job started: sendDailyIncomeExpenseReminder()");
-
-        // Get ALL registered users
-        List<ProfileEntity> profiles = profileRepository.findAll();
-
-        // Send personalized reminder to each user
-        for(ProfileEntity profile : profiles){
-            String body = "Hi! " + profile.getFullName() + ",<br><br>"
-                    + "This is a friendly reminder to add your income and expenses for today in Equitrack.<br><br>"
-                    + "<a href="+frontEndUrl+" style='display:inline-block;padding:10px 20px;background-color:#4CAF50;color:#fff;text-decoration:none;border-radius:5px;font-weight:bold;'>Go to Equitrack</a>"
-                    + "<br><br>Best regards,<br>Equitrack Team";
-
-            emailService.sendEmail(profile.getEmail(), "Daily reminder: Add your income and expenses", body);
+    @Scheduled(cron = "0 * * * * *")
+    public void dispatchDueNotifications(){
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+        // Every node fires this; the job lock lets exactly one of them dispatch this minute
+        jobLockService.runExclusive(DISPATCH_JOB, now.toString(), () -> {
+            Instant earliest = now.minus(catchUpMinutes, ChronoUnit.MINUTES);
+            Instant from = jobLockService.lastCompletedOccurrence(DISPATCH_JOB)
+                    .map(last -> Instant.parse(last).plus(1, ChronoUnit.MINUTES))
+                    .filter(next -> !next.isAfter(now))
+                    .orElse(now);
+            if(from.isBefore(earliest)){
+                log.warn("⚠️ Notification dispatch was down since {} - replaying only the last {} minutes", from, catchUpMinutes);
+                from = earliest;
+            }
+            for(Instant minute = from; !minute.isAfter(now); minute = minute.plus(1, ChronoUnit.MINUTES)){
+                dispatchMinute(minute);
+            }
+        });
+    }
+
+    private void dispatchMinute(Instant minute){
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int reminders = 0;
+        int skipped = 0;
+        int summaries = 0;
+
+        for(String timezone : activeTimezones()){
+            for(LocalDateTime local : dueSlots(minute, ZoneId.of(timezone))){
+                String slot = SLOT_MINUTE.format(local) + "|" + timezone;
+                int[] result = sendReminders(slot, timezone, local.getHour(), local.getMinute(), local.toLocalDate());
+                reminders += result[0];
+                skipped += result[1];
+
+                // Summary slot is one local hour after the reminder slot; its "today" is the reminder's day
+                LocalDateTime reminderTime = local.minusHours(1);
+                summaries += sendExpenseSummaries(slot, timezone, reminderTime.getHour(), reminderTime.getMinute(),
+                        reminderTime.toLocalDate());
+            }
+        }
+
+        sample.stop(meterRegistry.timer("equitrack.notification.dispatch"));
+        meterRegistry.counter("equitrack.notification.queued", "type", "reminder").increment(reminders);
+        meterRegistry.counter("equitrack.notification.queued", "type", "expense-summary").increment(summaries);
+        meterRegistry.counter("equitrack.notification.skipped", "type", "reminder").increment(skipped);
+        if(reminders + summaries > 0){
+            log.info("📬 Dispatched {}: {} reminders ({} skipped as already active), {} expense summaries",
+                    minute, reminders, skipped, summaries);
+        }
+    }
+
+    /**
+     * Local slots due at this UTC minute. Usually just the local time, but:
+     * - in a repeated (overlap) hour, only the first pass counts - the second one resolves,
+     *   with the earlier offset, to an instant an hour back and is skipped
+     * - right after a gap, the skipped local time of the same minute is due as well,
+     *   since ZonedDateTime.ofLocal moves it forward onto this instant
+     */
+    static List<LocalDateTime> dueSlots(Instant minute, ZoneId zone){
+        List<LocalDateTime> due = new ArrayList<>(2);
+        LocalDateTime local = LocalDateTime.ofInstant(minute, zone);
+        if(resolvesTo(local, zone, minute)){
+            due.add(local);
         }
-        log.info("Job completed: sendDailyIncomeExpenseReminder()");
+        ZoneOffsetTransition transition = zone.getRules().previousTransition(minute.plusSeconds(1));
+        if(transition != null && transition.isGap()){
+            LocalDateTime skippedSlot = local.minus(transition.getDuration());
+            // Only a time inside the gap is moved forward onto this minute; anything else resolves elsewhere
+            if(resolvesTo(skippedSlot, zone, minute)){
+                due.add(skippedSlot);
+            }
+        }
+        return due;
+    }
+
+    private static boolean resolvesTo(LocalDateTime local, ZoneId zone, Instant minute){
+        return ZonedDateTime.ofLocal(local, zone, null).withEarlierOffsetAtOverlap().toInstant().equals(minute);
     }
 
     /**
-     * DAILY EXPENSE SUMMARY NOTIFICATION - SCHEDULED TASK
-     * Sends expense summary ONLY to users who have expenses today
+     * DAILY REMINDER NOTIFICATION
+     * Sends reminder to active users in this slot who have NOT logged anything yet today
+     * (slot ids AND-NOT today's activity bitmap). Each chunk is queued in the transaction that
+     * checkpoints it
      *
-     * Scheduled to run daily at 11:00 AM Manila time (1 hour after reminder)
+     * @return {queued, skipped} - queued includes chunks committed by an earlier attempt
      */
-    //@Scheduled(cron = "0 * * * * *", zone = "Asia/Manila")  // TEST: Every minute
-    @Scheduled(cron = "0 0 11 * * *", zone = "Asia/Manila")  // PROD: Daily at 11:00 AM
-    public void sendDailyExpenseSummary(){
-        log.info("Job started: sendDailyExpenseSummary()");
-        List<ProfileEntity> profiles = profileRepository.findAll();
-
-        // Process each user individually
-        for(ProfileEntity profile: profiles){
-            // Get today's expenses for this user (Asia/Manila timezone)
-            List<ExpenseDTO> todaysExpenses = expenseService.getExpensesForUserOnDate(
-                    profile.getId(), LocalDate.now(ZoneId.of("Asia/Manila")));
-
-            // Only send email if user has expenses today
-            if(!todaysExpenses.isEmpty()){
-                // Build HTML table for expense summary
-                StringBuilder table = new StringBuilder();
-                table.append("<table style='border-collapse:collapse;width:100%;'>");
-                table.append("<tr style='background-color:#f2f2f2;'><th style='border:1px solid #ddd;padding:8px;'>No</th><th style='border:1px solid #ddd;padding:8px;'>Name</th><th style='border:1px solid #ddd;padding:8px;'>Amount</th><th style='border:1px solid #ddd;padding:8px;'>Category</th></tr>");
-                int i = 1;
-
-                // Add each expense as a table row
-                for(ExpenseDTO expense: todaysExpenses){
-                    table.append("<tr>");
-                    table.append("<td style='border:1px solid #ddd;padding:8px;'>").append(i++).append("</td>");
-                    table.append("<td style='border:1px solid #ddd;padding:8px;'>").append(expense.getName()).append("</td>");
-                    table.append("<td style='border:1px solid #ddd;padding:8px;'>").append(expense.getAmount()).append("</td>");
-                    table.append("<td style='border:1px solid #ddd;padding:8px;'>").append(expense.getCategoryId() != null ? expense.getCategoryName() : "N/A").append("</td>");
-                    table.append("</tr>");
+    private int[] sendReminders(String slot, String timezone, int hour, int minute, LocalDate today){
+        IdRangeDTO range = profileRepository.findIdRangeInSlot(timezone, hour, minute);
+        if(range.getMinId() == null){
+            return new int[]{0, 0};
+        }
+        Roaring64Bitmap activeToday = activityBitmapService.activeUsers(today);
+        int[] skipped = {0};
+        long queued = batchJobRunner.run(REMINDER_JOB, slot, range.getMinId(), range.getMaxId(), 1, (afterId, upToId) -> {
+            List<ProfileSummaryDTO> chunk = profileRepository.findActiveInSlot(
+                    timezone, hour, minute, afterId, upToId, PageRequest.of(0, chunkSize));
+            if(chunk.isEmpty()){
+                return null;
+            }
+            Long lastId = chunk.get(chunk.size() - 1).getId();
+
+            Roaring64Bitmap slotIds = new Roaring64Bitmap();
+            for(ProfileSummaryDTO profile : chunk){
+                slotIds.addLong(profile.getId());
+            }
+            Roaring64Bitmap inactive = Roaring64Bitmap.andNot(slotIds, activeToday);
+            skipped[0] += chunk.size() - (int) inactive.getLongCardinality();
+            if(inactive.isEmpty()){
+                return new BatchJobRunner.Chunk(lastId, 0);
+            }
+
+            // One shared template, personalized through Brevo params
+            List<EmailRecipientDTO> recipients = new ArrayList<>((int) inactive.getLongCardinality());
+            for(ProfileSummaryDTO profile : chunk){
+                if(!inactive.contains(profile.getId())){
+                    continue;
+                }
+                recipients.add(EmailRecipientDTO.builder()
+                        .email(profile.getEmail())
+                        .name(profile.getFullName())
+                        .params(Map.of("fullName", nullToEmpty(profile.getFullName())))
+                        .build());
+            }
+            int sent = emailService.sendBatchEmail("Daily reminder: Add your income and expenses", reminderTemplate(), recipients);
+            return new BatchJobRunner.Chunk(lastId, sent);
+        });
+        return new int[]{Math.toIntExact(queued), skipped[0]};
+    }
+
+    /**
+     * DAILY EXPENSE SUMMARY NOTIFICATION
+     * Sends expense summary ONLY to users in this slot who have expenses on that day:
+     * ids of those users first, then all their rows in one query per chunk.
+     * Each chunk is queued in the transaction that checkpoints it
+     */
+    private int sendExpenseSummaries(String slot, String timezone, int hour, int minute, LocalDate day){
+        IdRangeDTO range = expenseRepository.findIdRangeInSlotWithExpensesOn(day, timezone, hour, minute);
+        if(range.getMinId() == null){
+            return 0;
+        }
+        long queued = batchJobRunner.run(SUMMARY_JOB, slot, range.getMinId(), range.getMaxId(), 1, (afterId, upToId) -> {
+            List<Long> profileIds = expenseRepository.findProfileIdsInSlotWithExpensesOn(
+                    day, timezone, hour, minute, afterId, upToId, PageRequest.of(0, chunkSize));
+            if(profileIds.isEmpty()){
+                return null;
+            }
+            // Runs in the chunk transaction, which also keeps the row cursor open
+            List<EmailRecipientDTO> recipients = summaryRecipients(day, profileIds);
+            int sent = emailService.sendBatchEmail("Your daily Expense summary", expenseSummaryTemplate(), recipients);
+            return new BatchJobRunner.Chunk(profileIds.get(profileIds.size() - 1), sent);
+        });
+        return Math.toIntExact(queued);
+    }
+
+    /**
+     * Drops finished slot runs (DONE or FAILED) once they are too old to be replayed
+     */
+    @Scheduled(cron = "0 15 * * * *")
+    @Transactional
+    public void purgeDispatchHistory(){
+        LocalDateTime before = LocalDateTime.now().minusHours(historyHours);
+        int deleted = batchPartitionRepository.deleteFinishedBefore(REMINDER_JOB, before)
+                + batchPartitionRepository.deleteFinishedBefore(SUMMARY_JOB, before);
+        if(deleted > 0){
+            log.info("🧹 Purged {} finished notification slot runs", deleted);
+        }
+    }
+
+    // One summary recipient per user, built while the day's rows stream from the cursor
+    private List<EmailRecipientDTO> summaryRecipients(LocalDate day, List<Long> profileIds){
+        List<EmailRecipientDTO> recipients = new ArrayList<>(profileIds.size());
+        DailyExpenseRowDTO owner = null;
+        List<Map<String, Object>> rows = new ArrayList<>();
+
+        // Rows are ordered by profile - consecutive rows form one user's summary
+        try(Stream<DailyExpenseRowDTO> expenses = expenseRepository.streamDailyExpenseRowsForProfiles(day, profileIds)){
+            for(DailyExpenseRowDTO expense : (Iterable<DailyExpenseRowDTO>) expenses::iterator){
+                if(owner == null || !owner.getProfileId().equals(expense.getProfileId())){
+                    if(owner != null){
+                        recipients.add(summaryRecipient(owner, rows));
+                        rows = new ArrayList<>();
+                    }
+                    owner = expense;
                 }
-                table.append("</table>");
 
-                // Create email body with personalized table
-                String body = "Hi! "+profile.getFullName()+",<br/><br/> Here is a summary of your expenses for today:<br/><br/>"+table+"<br/><br/>Best regards,<br/> Equitrack Team";
-                emailService.sendEmail(profile.getEmail(), "Your daily Expense summary", body);
+                // Table rows are rendered by the template's {% for %} loop
+                rows.add(Map.of(
+                        "no", rows.size() + 1,
+                        "name", nullToEmpty(expense.getName()),
+                        "amount", expense.getAmount() != null ? expense.getAmount().toPlainString() : "",
+                        "category", expense.getCategoryName() != null ? expense.getCategoryName() : "N/A"));
+            }
+        }
+        if(owner != null){
+            recipients.add(summaryRecipient(owner, rows));
+        }
+        return recipients;
+    }
+
+    private List<String> activeTimezones(){
+        if(Duration.between(timezonesLoadedAt, Instant.now()).toMinutes() >= 5){
+            List<String> valid = new ArrayList<>();
+            for(String timezone : profileRepository.findActiveTimezones()){
+                try{
+                    ZoneId.of(timezone);
+                    valid.add(timezone);
+                } catch(DateTimeException e){
+                    log.warn("⚠️ Skipping unknown timezone in profiles: {}", timezone);
+                }
             }
-            log.info("Job completed: sendDailyExpenseSummary()");
+            timezones = valid;
+            timezonesLoadedAt = Instant.now();
         }
+        return timezones;
+    }
+
+    private EmailRecipientDTO summaryRecipient(DailyExpenseRowDTO owner, List<Map<String, Object>> rows){
+        return EmailRecipientDTO.builder()
+                .email(owner.getEmail())
+                .name(owner.getFullName())
+                .params(Map.of("fullName", nullToEmpty(owner.getFullName()), "expenses", rows))
+                .build();
+    }
+
+    // Shared HTML for the daily reminder - {{ params.* }} is filled in per recipient by Brevo
+    private String reminderTemplate(){
+        return "<html><body><p>Hi! {{ params.fullName }},<br><br>"
+                + "This is a friendly reminder to add your income and expenses for today in Equitrack.<br><br>"
+                + "<a href="+frontEndUrl+" style='display:inline-block;padding:10px 20px;background-color:#4CAF50;color:#fff;text-decoration:none;border-radius:5px;font-weight:bold;'>Go to Equitrack</a>"
+                + "<br><br>Best regards,<br>Equitrack Team</p></body></html>";
+    }
+
+    // Shared HTML for the expense summary - one table row per entry in params.expenses
+    private String expenseSummaryTemplate(){
+        String cell = "<td style='border:1px solid #ddd;padding:8px;'>";
+        return "<html><body><p>Hi! {{ params.fullName }},<br/><br/> Here is a summary of your expenses for today:<br/><br/>"
+                + "<table style='border-collapse:collapse;width:100%;'>"
+                + "<tr style='background-color:#f2f2f2;'><th style='border:1px solid #ddd;padding:8px;'>No</th><th style='border:1px solid #ddd;padding:8px;'>Name</th><th style='border:1px solid #ddd;padding:8px;'>Amount</th><th style='border:1px solid #ddd;padding:8px;'>Category</th></tr>"
+                + "{% for expense in params.expenses %}<tr>"
+                + cell + "{{ expense.no }}</td>"
+                + cell + "{{ expense.name }}</td>"
+                + cell + "{{ expense.amount }}</td>"
+                + cell + "{{ expense.category }}</td>"
+                + "</tr>{% endfor %}"
+                + "</table><br/><br/>Best regards,<br/> Equitrack Team</p></body></html>";
+    }
+
+    private static String nullToEmpty(String value){
+        return value != null ? value : "";
     }
 }
\ No newline at end of file
@@ -14,7 +14,11 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
 
@@ -32,6 +36,8 @@ public class ProfileService {
     private final AuthenticationManager authenticationManager;
     // JWT token utility for creating and validating tokens
     private final JwtUtil jwtUtil;
+    // Exchange rate table - decides which base currencies are allowed
+    private final CurrencyService currencyService;
 
     // Activation URL from application.properties for email links
     @Value("${app.activation.url}")
@@ -44,7 +50,11 @@ public class ProfileService {
      * 3. Saves user to database (initially inactive)
      * 4. Sends activation email with unique link
      * 5. Returns user DTO without sensitive data
+     *
+     * Runs in one transaction so the activation email (queued in the outbox) is only
+     * sent if the profile row actually commits
      */
+    @Transactional
     public ProfileDTO registerProfile(ProfileDTO profileDTO){
         // Convert DTO to entity with encrypted password
         ProfileEntity newProfile = toEntity(profileDTO);
@@ -55,7 +65,7 @@ public class ProfileService {
         // Save user to database (isActive=false by default from entity @PrePersist)
         newProfile = profileRepository.save(newProfile);
 
-        // Build activation link and send email (async - won't block response)
+        // Build activation link and queue the email (delivered by the outbox worker after commit)
         String activationLink = activationURL + "/api/v1.0/activate?token=" + newProfile.getActivationToken();
         String subject = "Activate your EquiTrack Account!";
         String body = "Click on the following link to activate your account: " + activationLink;
@@ -78,6 +88,9 @@ public class ProfileService {
                 // CRITICAL: Encrypt password before storing in database
                 .password(passwordEncoder.encode(profileDTO.getPassword()))
                 .profileImageUrl(profileDTO.getProfileImageUrl())
+                .timezone(validTimezone(profileDTO.getTimezone()))
+                .notifyHour(validNotifyHour(profileDTO.getNotifyHour()))
+                .baseCurrency(validCurrency(profileDTO.getBaseCurrency()))
                 .createdAt(profileDTO.getCreatedAt())
                 .updatedAt(profileDTO.getUpdatedAt())
                 .build();
@@ -96,6 +109,9 @@ public class ProfileService {
                 .phone(profileEntity.getPhone())
                 .bio(profileEntity.getBio())
                 .profileImageUrl(profileEntity.getProfileImageUrl())
+                .timezone(profileEntity.getTimezone())
+                .notifyHour(profileEntity.getNotifyHour())
+                .baseCurrency(profileEntity.getBaseCurrency())
                 .createdAt(profileEntity.getCreatedAt())
                 .updatedAt(profileEntity.getUpdatedAt())
                 .build();
@@ -167,6 +183,9 @@ public class ProfileService {
                 .phone(currentUser.getPhone())
                 .bio(currentUser.getBio())
                 .profileImageUrl(currentUser.getProfileImageUrl())
+                .timezone(currentUser.getTimezone())
+                .notifyHour(currentUser.getNotifyHour())
+                .baseCurrency(currentUser.getBaseCurrency())
                 .createdAt(currentUser.getCreatedAt())
                 .updatedAt(currentUser.getUpdatedAt())
                 .build();
@@ -225,8 +244,49 @@ public class ProfileService {
         if (profileDTO.getBio() != null) {
             currentProfile.setBio(profileDTO.getBio());
         }
+        // Update notification schedule
+        if (profileDTO.getTimezone() != null) {
+            currentProfile.setTimezone(validTimezone(profileDTO.getTimezone()));
+        }
+        if (profileDTO.getNotifyHour() != null) {
+            currentProfile.setNotifyHour(validNotifyHour(profileDTO.getNotifyHour()));
+        }
+        // Update currency for wallet totals
+        if (profileDTO.getBaseCurrency() != null) {
+            currentProfile.setBaseCurrency(validCurrency(profileDTO.getBaseCurrency()));
+        }
         // Save and return
         ProfileEntity updatedProfile = profileRepository.save(currentProfile);
         return toDTO(updatedProfile);
     }
-}
\ No newline at end of file
+
+    // Null means "use the default" (set in ProfileEntity.prePersist)
+    private String validTimezone(String timezone) {
+        if (timezone == null) {
+            return null;
+        }
+        try {
+            return ZoneId.of(timezone).getId();
+        } catch (DateTimeException e) {
+            throw new RuntimeException("Invalid timezone: " + timezone);
+        }
+    }
+
+    private Integer validNotifyHour(Integer notifyHour) {
+        if (notifyHour != null && (notifyHour < 0 || notifyHour > 23)) {
+            throw new RuntimeException("Notification hour must be between 0 and 23");
+        }
+        return notifyHour;
+    }
+
+    // Only currencies with an exchange rate can be used for totals; null means the default
+    private String validCurrency(String currency) {
+        if (currency == null) {
+            return null;
+        }
+        if (!currencyService.isSupported(currency)) {
+            throw new RuntimeException("Unsupported currency: " + currency);
+        }
+        return currency.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,78 @@
+package io.equitrack.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * RUNS A UNIT OF WORK IN ITS OWN TRANSACTION, RETRYING TRANSIENT FAILURES
+ *
+ * Deadlock victims, lock-wait timeouts and serialization failures are translated by Spring into
+ * TransientDataAccessException. The whole transaction is rolled back and run again, up to
+ * max-attempts times, with a short jittered backoff so the competing transaction can finish.
+ * Anything else (validation errors, insufficient balance) fails immediately.
+ *
+ * Called inside an outer transaction, the work joins that transaction and is not retried here -
+ * a retry could not undo what the outer transaction already did. The outer transaction's own
+ * TransactionRetry (e.g. IdempotencyService) retries the whole unit instead.
+ */
+@Component
+@Slf4j
+public class TransactionRetry {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${equitrack.tx.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${equitrack.tx.retry.backoff-ms:20}")
+    private long backoffMs;
+
+    public TransactionRetry(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @param name   - Operation name, used in logs and the equitrack.tx.retries metric
+     * @param action - The transactional work; runs again from scratch on every attempt
+     */
+    public <T> T execute(String name, TransactionCallback<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(action);  // Joins; the outermost caller retries
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(action);
+            } catch (TransientDataAccessException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("❌ {} failed after {} attempts: {}", name, attempt, e.getMessage());
+                    throw e;
+                }
+                meterRegistry.counter("equitrack.tx.retries", "operation", name).increment();
+                log.warn("🔁 {} hit {} (attempt {}/{}) - retrying", name, e.getClass().getSimpleName(), attempt, maxAttempts);
+                sleep(attempt);
+            }
+        }
+    }
+
+    // Exponential backoff with full jitter, so retrying transactions don't collide again
+    private void sleep(int attempt) {
+        long ceiling = backoffMs << (attempt - 1);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to retry", e);
+        }
+    }
+}
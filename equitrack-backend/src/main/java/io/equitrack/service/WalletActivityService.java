@@ -0,0 +1,139 @@
+package io.equitrack.service;
+
+import io.equitrack.dto.WalletActivityDTO;
+import io.equitrack.dto.WalletActivityPageDTO;
+import io.equitrack.repository.WalletActivityRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Wallet activity history, served in keyset pages
+ *
+ * Pages are cut on (createdAt, id) instead of OFFSET, so page 500 costs the same as page 1
+ * and rows inserted while the user scrolls never shift or repeat entries.
+ * Pages that reach past the archive horizon also read tbl_wallet_activities_archive.
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletActivityService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final Set<String> TYPES = Set.of("DEPOSIT", "WITHDRAW", "TRANSFER_OUT", "TRANSFER_IN");
+
+    private final WalletActivityRepository walletActivityRepository;
+    private final WalletArchiveService walletArchiveService;
+
+    /**
+     * @param profileId - Owner of the activities
+     * @param walletId  - Optional wallet filter
+     * @param type      - Optional activity type filter (DEPOSIT, WITHDRAW, TRANSFER_OUT, TRANSFER_IN)
+     * @param from      - Optional first day (inclusive)
+     * @param to        - Optional last day (inclusive)
+     * @param cursor    - nextCursor of the previous page, null for the first page
+     * @param limit     - Page size, defaults to 50, capped at 200
+     * @throws RuntimeException on an unknown type or a malformed cursor
+     */
+    @Transactional(readOnly = true)
+    public WalletActivityPageDTO getActivityPage(Long profileId, Long walletId, String type,
+                                                 LocalDate from, LocalDate to, String cursor, Integer limit) {
+        String activityType = null;
+        if (type != null && !type.isBlank()) {
+            activityType = type.trim().toUpperCase();
+            if (!TYPES.contains(activityType)) {
+                throw new RuntimeException("Invalid activity type, must be one of " + TYPES);
+            }
+        }
+        int size = limit == null || limit <= 0 ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+
+        LocalDateTime afterAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterAt = LocalDateTime.parse(parts[0]);
+            afterId = Long.valueOf(parts[1]);
+        }
+
+        LocalDateTime fromAt = from != null ? from.atStartOfDay() : null;
+        LocalDateTime toAt = to != null ? to.plusDays(1).atStartOfDay() : null;
+
+        // One extra row tells whether another page exists
+        List<WalletActivityDTO> rows = walletActivityRepository.findActivityPage(profileId, walletId, activityType,
+                fromAt, toAt, afterAt, afterId, size + 1);
+
+        // Archived rows are all older than the horizon - only needed if the page reaches past it
+        boolean reachesArchive = rows.size() <= size
+                || rows.get(rows.size() - 1).getCreatedAt().isBefore(walletArchiveService.archiveHorizon());
+        if (reachesArchive && (fromAt == null || fromAt.isBefore(walletArchiveService.archiveHorizon()))) {
+            List<WalletActivityDTO> archived = walletActivityRepository.findArchivedActivityPage(profileId, walletId,
+                    activityType, fromAt, toAt, afterAt, afterId, size + 1);
+            if (!archived.isEmpty()) {
+                rows = mergeNewestFirst(rows, archived, size + 1);
+            }
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<WalletActivityDTO> items = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            WalletActivityDTO last = items.get(items.size() - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return WalletActivityPageDTO.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // Both inputs are sorted newest first; ids are unique across the two tables
+    private List<WalletActivityDTO> mergeNewestFirst(List<WalletActivityDTO> hot, List<WalletActivityDTO> archived, int limit) {
+        List<WalletActivityDTO> merged = new ArrayList<>(limit);
+        int i = 0;
+        int j = 0;
+        while (merged.size() < limit && (i < hot.size() || j < archived.size())) {
+            if (j >= archived.size() || (i < hot.size() && isNewer(hot.get(i), archived.get(j)))) {
+                merged.add(hot.get(i++));
+            } else {
+                merged.add(archived.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    private boolean isNewer(WalletActivityDTO a, WalletActivityDTO b) {
+        int byTime = a.getCreatedAt().compareTo(b.getCreatedAt());
+        return byTime != 0 ? byTime > 0 : a.getId() > b.getId();
+    }
+
+    private String encodeCursor(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException(raw);
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package io.equitrack.service;
+
+import io.equitrack.repository.WalletActivityArchiveRepository;
+import io.equitrack.repository.WalletActivityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * WALLET ACTIVITY ARCHIVE (tbl_wallet_activities -> tbl_wallet_activities_archive)
+ *
+ * Keeps the hot activity table small: once a night, activities older than horizon-days are
+ * moved to the archive table in chunks (copy + delete in one transaction per chunk).
+ * - Only entries covered by a balance snapshot move, so current balances read the hot table only
+ * - History pages, historic balances and the full statement read the archive when they reach
+ *   past the horizon
+ * - The run is guarded by a job lock, so only one node archives at a time
+ */
+@Service
+@Slf4j
+public class WalletArchiveService {
+
+    private static final String ARCHIVE_JOB = "wallet-activity-archive";
+
+    private final WalletActivityRepository walletActivityRepository;
+    private final WalletActivityArchiveRepository walletActivityArchiveRepository;
+    private final JobLockService jobLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${equitrack.wallet.archive.horizon-days:365}")
+    private long horizonDays;
+
+    @Value("${equitrack.wallet.archive.chunk-size:1000}")
+    private int chunkSize;
+
+    public WalletArchiveService(WalletActivityRepository walletActivityRepository,
+                                WalletActivityArchiveRepository walletActivityArchiveRepository,
+                                JobLockService jobLockService,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.walletActivityRepository = walletActivityRepository;
+        this.walletActivityArchiveRepository = walletActivityArchiveRepository;
+        this.jobLockService = jobLockService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Activities created before this moment may already be in the archive
+     */
+    public LocalDateTime archiveHorizon() {
+        return LocalDateTime.now().minusDays(horizonDays);
+    }
+
+    @Scheduled(cron = "${equitrack.wallet.archive.cron:0 30 3 * * *}")
+    public void archiveOldActivities() {
+        jobLockService.runExclusive(ARCHIVE_JOB, LocalDate.now().toString(), this::archive);
+    }
+
+    /**
+     * Moves every eligible activity older than the horizon, one chunk per transaction
+     * @return number of activities moved
+     */
+    public long archive() {
+        LocalDateTime cutoff = archiveHorizon();
+        long moved = 0;
+        long afterId = 0L;
+        long startNanos = System.nanoTime();
+
+        while (true) {
+            List<Long> ids = walletActivityRepository.findArchivableIds(cutoff, afterId, PageRequest.of(0, chunkSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(tx -> {
+                walletActivityArchiveRepository.copyFromHot(ids, now);
+                walletActivityRepository.deleteByIdIn(ids);
+            });
+            moved += ids.size();
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < chunkSize) {
+                break;
+            }
+        }
+
+        meterRegistry.counter("equitrack.wallet.archive.moved").increment(moved);
+        log.info("🗄️ Archived {} wallet activities older than {} in {} ms",
+                moved, cutoff, (System.nanoTime() - startNanos) / 1_000_000);
+        return moved;
+    }
+}
@@ -0,0 +1,266 @@
+package io.equitrack.service;
+
+import io.equitrack.dto.BalanceHistoryDTO;
+import io.equitrack.dto.BalanceHistoryPointDTO;
+import io.equitrack.dto.CurrencyTotalDTO;
+import io.equitrack.entity.ProfileEntity;
+import io.equitrack.entity.WalletEntity;
+import io.equitrack.repository.ProfileRepository;
+import io.equitrack.repository.WalletActivityArchiveRepository;
+import io.equitrack.repository.WalletActivityRepository;
+import io.equitrack.repository.WalletRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * WALLET BALANCE HISTORY (charts)
+ *
+ * The database groups the activities of the range per bucket and returns each bucket's net change
+ * together with the running total (SUM(...) OVER (ORDER BY bucket)) - only one row per bucket
+ * leaves the database, never the activities themselves. The running total is anchored on the
+ * ledger balance just before the range, so every point is an actual balance (for a profile, the
+ * current balances of all its wallets minus everything since the range start, in one statement).
+ * - A profile's wallets are charted per currency and converted to its base currency with the same
+ *   rate table as the total balance; currencies without a rate are left out and listed
+ * - Ranges that reach past the archive horizon add the archived buckets the same way
+ * - Buckets without activity repeat the previous balance, so charts get evenly spaced points
+ * - WEEK is built from DAY buckets (not every database can truncate to a week)
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class WalletBalanceHistoryService {
+
+    public static final String BUCKET_HOUR = "HOUR";
+    public static final String BUCKET_DAY = "DAY";
+    public static final String BUCKET_WEEK = "WEEK";
+    public static final String BUCKET_MONTH = "MONTH";
+    public static final String BUCKET_YEAR = "YEAR";
+
+    private final WalletRepository walletRepository;
+    private final ProfileRepository profileRepository;
+    private final CurrencyService currencyService;
+    private final WalletActivityRepository walletActivityRepository;
+    private final WalletActivityArchiveRepository walletActivityArchiveRepository;
+    private final WalletLedgerService walletLedgerService;
+    private final WalletArchiveService walletArchiveService;
+
+    @Value("${equitrack.wallet.history.max-points:1000}")
+    private int maxPoints;
+
+    /**
+     * Balance of one wallet over [from, to)
+     * @param bucket - HOUR, DAY, WEEK, MONTH or YEAR (default DAY)
+     * @param from   - Range start (default: 30 buckets before to)
+     * @param to     - Range end (default: now)
+     * @throws RuntimeException if the wallet does not exist or the range has too many points
+     */
+    public BalanceHistoryDTO getWalletHistory(Long walletId, String bucket, LocalDateTime from, LocalDateTime to) {
+        WalletEntity wallet = walletRepository.findById(walletId)
+                .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
+        String unit = normalize(bucket);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(30, chronoUnit(unit));
+        validateRange(unit, start, end);
+
+        BigDecimal opening = walletLedgerService.balanceBefore(walletId, start);
+        List<BalanceHistoryPointDTO> points = buildPoints(unit, start, end, opening,
+                sources(unit, start, end, walletId, null, null));
+        return BalanceHistoryDTO.builder()
+                .walletId(walletId)
+                .bucket(unit)
+                .from(start)
+                .to(end)
+                .currency(wallet.getCurrency())
+                .openingBalance(opening)
+                .unconvertedCurrencies(List.of())
+                .points(points)
+                .build();
+    }
+
+    /**
+     * Combined balance of all wallets of a profile over [from, to), in the profile's base currency
+     * Each wallet currency is charted on its own and converted with the current exchange rates, so
+     * PHP and USD amounts are never added as the same unit
+     */
+    public BalanceHistoryDTO getProfileHistory(Long profileId, String bucket, LocalDateTime from, LocalDateTime to) {
+        String unit = normalize(bucket);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minus(30, chronoUnit(unit));
+        validateRange(unit, start, end);
+
+        String target = profileRepository.findById(profileId)
+                .map(ProfileEntity::getBaseCurrency)
+                .orElse(ProfileEntity.DEFAULT_BASE_CURRENCY);
+
+        // All wallets at once instead of one ledger lookup per wallet - one opening per currency
+        Map<String, BigDecimal> openings = new LinkedHashMap<>();
+        for (CurrencyTotalDTO row : walletRepository.getBalancesBeforeByCurrency(profileId, start)) {
+            openings.merge(row.getCurrency(), row.getTotal(), BigDecimal::add);
+        }
+        if (start.isBefore(walletArchiveService.archiveHorizon())) {
+            for (CurrencyTotalDTO row : walletActivityArchiveRepository.sumProfileChangesSinceByCurrency(profileId, start)) {
+                openings.merge(row.getCurrency(), row.getTotal().negate(), BigDecimal::add);
+            }
+        }
+
+        BigDecimal opening = BigDecimal.ZERO;
+        List<BalanceHistoryPointDTO> points = null;
+        List<String> unconverted = new ArrayList<>();
+        for (Map.Entry<String, BigDecimal> currency : openings.entrySet()) {
+            Optional<BigDecimal> factor = currencyService.conversionFactor(currency.getKey(), target);
+            if (factor.isEmpty()) {
+                unconverted.add(currency.getKey());
+                continue;
+            }
+            // With a single currency the bucket query needs no currency filter
+            String filter = openings.size() > 1 ? currency.getKey() : null;
+            List<BalanceHistoryPointDTO> series = buildPoints(unit, start, end, currency.getValue(),
+                    sources(unit, start, end, null, profileId, filter));
+            opening = opening.add(currency.getValue().multiply(factor.get()));
+            points = add(points, series, factor.get());
+        }
+        if (points == null) {
+            points = buildPoints(unit, start, end, BigDecimal.ZERO, List.of());
+        }
+        if (!unconverted.isEmpty()) {
+            log.warn("⚠️ No exchange rate to convert {} into {} - left out of the balance history of profile {}",
+                    unconverted, target, profileId);
+        }
+        return BalanceHistoryDTO.builder()
+                .profileId(profileId)
+                .bucket(unit)
+                .from(start)
+                .to(end)
+                .currency(target)
+                .openingBalance(opening.setScale(2, RoundingMode.HALF_EVEN))
+                .unconvertedCurrencies(unconverted)
+                .points(points)
+                .build();
+    }
+
+    // Bucket rows of the hot table and, for ranges past the archive horizon, of the archive
+    private List<TreeMap<LocalDateTime, BalanceHistoryPointDTO>> sources(String unit, LocalDateTime start, LocalDateTime end,
+                                                                         Long walletId, Long profileId, String currency) {
+        // WEEK is queried per day and folded into weeks below
+        String queryUnit = BUCKET_WEEK.equals(unit) ? "day" : unit.toLowerCase(Locale.ROOT);
+
+        List<TreeMap<LocalDateTime, BalanceHistoryPointDTO>> sources = new ArrayList<>();
+        sources.add(byBucket(unit, walletActivityRepository.findBalanceBuckets(false, walletId, profileId, currency, queryUnit, start, end)));
+        if (start.isBefore(walletArchiveService.archiveHorizon())) {
+            sources.add(byBucket(unit, walletActivityRepository.findBalanceBuckets(true, walletId, profileId, currency, queryUnit, start, end)));
+        }
+        return sources;
+    }
+
+    private List<BalanceHistoryPointDTO> buildPoints(String unit, LocalDateTime start, LocalDateTime end, BigDecimal opening,
+                                                     List<TreeMap<LocalDateTime, BalanceHistoryPointDTO>> sources) {
+        List<BalanceHistoryPointDTO> points = new ArrayList<>();
+        for (LocalDateTime bucketStart = truncate(unit, start); bucketStart.isBefore(end);
+             bucketStart = bucketStart.plus(1, chronoUnit(unit))) {
+            BigDecimal change = BigDecimal.ZERO;
+            BigDecimal balance = opening;
+            for (TreeMap<LocalDateTime, BalanceHistoryPointDTO> source : sources) {
+                BalanceHistoryPointDTO exact = source.get(bucketStart);
+                if (exact != null) {
+                    change = change.add(exact.getChange());
+                }
+                // Running total of the latest bucket with activity at or before this one
+                Map.Entry<LocalDateTime, BalanceHistoryPointDTO> latest = source.floorEntry(bucketStart);
+                if (latest != null) {
+                    balance = balance.add(latest.getValue().getBalance());
+                }
+            }
+            points.add(new BalanceHistoryPointDTO(bucketStart, change, balance));
+        }
+        return points;
+    }
+
+    // Adds a converted currency series to the points so far (both have the same buckets)
+    private List<BalanceHistoryPointDTO> add(List<BalanceHistoryPointDTO> points, List<BalanceHistoryPointDTO> series,
+                                             BigDecimal factor) {
+        List<BalanceHistoryPointDTO> sum = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            BalanceHistoryPointDTO point = series.get(i);
+            BigDecimal change = point.getChange().multiply(factor);
+            BigDecimal balance = point.getBalance().multiply(factor);
+            if (points != null) {
+                change = change.add(points.get(i).getChange());
+                balance = balance.add(points.get(i).getBalance());
+            }
+            sum.add(new BalanceHistoryPointDTO(point.getBucketStart(),
+                    change.setScale(2, RoundingMode.HALF_EVEN), balance.setScale(2, RoundingMode.HALF_EVEN)));
+        }
+        return sum;
+    }
+
+    // Bucket start -> row; day rows folded into a week keep the summed change and the last running total
+    private TreeMap<LocalDateTime, BalanceHistoryPointDTO> byBucket(String unit, List<BalanceHistoryPointDTO> rows) {
+        TreeMap<LocalDateTime, BalanceHistoryPointDTO> buckets = new TreeMap<>();
+        for (BalanceHistoryPointDTO row : rows) {
+            buckets.merge(truncate(unit, row.getBucketStart()), row, (earlier, later) ->
+                    new BalanceHistoryPointDTO(earlier.getBucketStart(),
+                            earlier.getChange().add(later.getChange()), later.getBalance()));
+        }
+        return buckets;
+    }
+
+    private void validateRange(String unit, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("'from' must be before 'to'");
+        }
+        long buckets = chronoUnit(unit).between(truncate(unit, start), end) + 1;
+        if (buckets > maxPoints) {
+            throw new RuntimeException("Range has " + buckets + " " + unit + " buckets, maximum is " + maxPoints
+                    + " - use a larger bucket or a shorter range");
+        }
+    }
+
+    private String normalize(String bucket) {
+        if (bucket == null || bucket.isBlank()) {
+            return BUCKET_DAY;
+        }
+        String unit = bucket.trim().toUpperCase(Locale.ROOT);
+        return switch (unit) {
+            case BUCKET_HOUR, BUCKET_DAY, BUCKET_WEEK, BUCKET_MONTH, BUCKET_YEAR -> unit;
+            default -> throw new RuntimeException("Invalid bucket: " + bucket + " (use HOUR, DAY, WEEK, MONTH or YEAR)");
+        };
+    }
+
+    private ChronoUnit chronoUnit(String unit) {
+        return switch (unit) {
+            case BUCKET_HOUR -> ChronoUnit.HOURS;
+            case BUCKET_WEEK -> ChronoUnit.WEEKS;
+            case BUCKET_MONTH -> ChronoUnit.MONTHS;
+            case BUCKET_YEAR -> ChronoUnit.YEARS;
+            default -> ChronoUnit.DAYS;
+        };
+    }
+
+    // Same truncation the database applies; weeks start on Monday
+    private LocalDateTime truncate(String unit, LocalDateTime time) {
+        return switch (unit) {
+            case BUCKET_HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case BUCKET_WEEK -> time.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case BUCKET_MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            case BUCKET_YEAR -> time.truncatedTo(ChronoUnit.DAYS).withDayOfYear(1);
+            default -> time.truncatedTo(ChronoUnit.DAYS);
+        };
+    }
+}
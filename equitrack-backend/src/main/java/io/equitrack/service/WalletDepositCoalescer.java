@@ -0,0 +1,214 @@
+package io.equitrack.service;
+
+import io.equitrack.entity.WalletEntity;
+import io.equitrack.repository.ProfileRepository;
+import io.equitrack.repository.WalletActivityRepository;
+import io.equitrack.repository.WalletActivityRepositoryCustom.LedgerEntry;
+import io.equitrack.repository.WalletRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * GROUP COMMIT FOR HIGH-FREQUENCY WALLET DEPOSITS
+ *
+ * Integrations that push many small deposits to one wallet make every deposit wait for the
+ * wallet row lock. With coalescing enabled, deposits are queued per wallet and a single writer
+ * per wallet commits everything that arrived within window-ms in one transaction:
+ * - one balance UPDATE for the sum, taking one ledger sequence number per deposit
+ * - one JDBC batch INSERT for the activity rows
+ * - one profile data version bump and, if an interval multiple was reached, one snapshot
+ * Callers block until their batch has committed, so a returned deposit is durable. If the batch
+ * fails (inactive wallet, database error) every deposit in it fails with the same error.
+ *
+ * Disabled by default - deposits then run one by one through WalletService.deposit.
+ */
+@Service
+@Slf4j
+public class WalletDepositCoalescer {
+
+    private final WalletService walletService;
+    private final WalletRepository walletRepository;
+    private final ProfileRepository profileRepository;
+    private final WalletLedgerService walletLedgerService;
+    private final TransactionRetry transactionRetry;
+    private final WalletActivityRepository walletActivityRepository;
+    private final ThreadPoolTaskScheduler scheduler;
+
+    // Metrics
+    private final DistributionSummary batchSize;
+    private final Timer depositLatency;
+
+    @Value("${equitrack.wallet.deposit-coalescing.enabled:false}")
+    private boolean enabled;
+
+    @Value("${equitrack.wallet.deposit-coalescing.window-ms:5}")
+    private long windowMs;
+
+    @Value("${equitrack.wallet.deposit-coalescing.max-batch:500}")
+    private int maxBatch;
+
+    // Wallet id -> deposits waiting for that wallet's writer; an entry exists only while a
+    // writer is scheduled or running for the wallet
+    private final ConcurrentHashMap<Long, ConcurrentLinkedQueue<PendingDeposit>> queues = new ConcurrentHashMap<>();
+
+    public WalletDepositCoalescer(WalletService walletService,
+                                  WalletRepository walletRepository,
+                                  ProfileRepository profileRepository,
+                                  WalletLedgerService walletLedgerService,
+                                  TransactionRetry transactionRetry,
+                                  WalletActivityRepository walletActivityRepository,
+                                  @Qualifier("walletDepositScheduler") ThreadPoolTaskScheduler scheduler,
+                                  MeterRegistry meterRegistry) {
+        this.walletService = walletService;
+        this.walletRepository = walletRepository;
+        this.profileRepository = profileRepository;
+        this.walletLedgerService = walletLedgerService;
+        this.transactionRetry = transactionRetry;
+        this.walletActivityRepository = walletActivityRepository;
+        this.scheduler = scheduler;
+
+        this.batchSize = DistributionSummary.builder("equitrack.wallet.deposit.batch.size")
+                .description("Deposits committed together in one group commit")
+                .register(meterRegistry);
+        this.depositLatency = Timer.builder("equitrack.wallet.deposit.latency")
+                .description("Time from a coalesced deposit being queued to its commit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deposits money, through the per-wallet group commit when coalescing is enabled
+     * @return The wallet as committed by the batch that included this deposit (its balance may
+     *         already include other deposits from the same batch)
+     * @throws RuntimeException if wallet not found, inactive, or amount is invalid
+     */
+    public WalletEntity deposit(Long walletId, BigDecimal amount) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The batch commits on the writer's thread, so a deposit that must commit with the
+            // caller's transaction (an idempotent request) runs on its own
+            return walletService.deposit(walletId, amount);
+        }
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("Deposit amount must be positive");
+        }
+
+        PendingDeposit deposit = new PendingDeposit(amount, System.nanoTime(), new CompletableFuture<>());
+        boolean[] first = {false};
+        queues.compute(walletId, (id, queue) -> {
+            if (queue == null) {
+                queue = new ConcurrentLinkedQueue<>();
+                first[0] = true;
+            }
+            queue.add(deposit);
+            return queue;
+        });
+        if (first[0]) {
+            schedule(walletId, windowMs);
+        }
+        return await(deposit.result());
+    }
+
+    private void schedule(Long walletId, long delayMs) {
+        try {
+            scheduler.schedule(() -> drain(walletId), Instant.now().plusMillis(delayMs));
+        } catch (TaskRejectedException e) {
+            // Shutting down - commit on the caller's thread instead of leaving deposits waiting
+            drain(walletId);
+        }
+    }
+
+    // Runs on the wallet's single writer: commits one batch, then hands over to the next one
+    private void drain(Long walletId) {
+        ConcurrentLinkedQueue<PendingDeposit> queue = queues.get(walletId);
+        List<PendingDeposit> batch = new ArrayList<>();
+        PendingDeposit next;
+        while (batch.size() < maxBatch && (next = queue.poll()) != null) {
+            batch.add(next);
+        }
+
+        if (!batch.isEmpty()) {
+            commit(walletId, batch);
+        }
+
+        // Deposits that arrived during the commit get the next batch right away
+        boolean more = queues.compute(walletId, (id, q) -> q.isEmpty() ? null : q) != null;
+        if (more) {
+            schedule(walletId, 0);
+        }
+    }
+
+    private void commit(Long walletId, List<PendingDeposit> batch) {
+        BigDecimal total = batch.stream().map(PendingDeposit::amount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        try {
+            WalletEntity wallet = transactionRetry.execute("wallet-deposit-batch", tx -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (walletRepository.creditBalanceBatch(walletId, total, batch.size(), now) == 0) {
+                    walletRepository.findById(walletId)
+                            .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
+                    throw new RuntimeException("Cannot deposit to inactive wallet");
+                }
+                WalletEntity updated = walletRepository.findById(walletId)
+                        .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
+
+                // The UPDATE took sequence numbers (ledgerSeq - size, ledgerSeq], one per deposit in queue order
+                long firstSeq = updated.getLedgerSeq() - batch.size() + 1;
+                Long profileId = updated.getProfile().getId();
+                List<LedgerEntry> entries = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    entries.add(new LedgerEntry(walletId, profileId, batch.get(i).amount(), "DEPOSIT", null, firstSeq + i, now));
+                }
+                walletActivityRepository.insertLedgerEntries(entries);
+
+                profileRepository.incrementWalletDataVersionForWallet(walletId);  // Invalidate cached statements
+                walletLedgerService.snapshotIfDue(updated, batch.size());
+                return updated;
+            });
+
+            batchSize.record(batch.size());
+            long committedAt = System.nanoTime();
+            for (PendingDeposit deposit : batch) {
+                depositLatency.record(Duration.ofNanos(committedAt - deposit.queuedAt()));
+                deposit.result().complete(wallet);
+            }
+        } catch (Throwable t) {
+            log.warn("⚠️ Group commit of {} deposits to wallet {} failed: {}", batch.size(), walletId, t.getMessage());
+            for (PendingDeposit deposit : batch) {
+                deposit.result().completeExceptionally(t);
+            }
+        }
+    }
+
+    private WalletEntity await(CompletableFuture<WalletEntity> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record PendingDeposit(BigDecimal amount, long queuedAt, CompletableFuture<WalletEntity> result) {}
+}
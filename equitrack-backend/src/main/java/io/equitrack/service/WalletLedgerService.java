@@ -0,0 +1,212 @@
+package io.equitrack.service;
+
+import io.equitrack.dto.WalletBalanceDTO;
+import io.equitrack.entity.WalletEntity;
+import io.equitrack.entity.WalletSnapshotEntity;
+import io.equitrack.repository.WalletActivityArchiveRepository;
+import io.equitrack.repository.WalletActivityRepository;
+import io.equitrack.repository.WalletRepository;
+import io.equitrack.repository.WalletSnapshotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * WALLET LEDGER (tbl_wallet_activities as the source of truth)
+ *
+ * Every balance change appends one activity with the wallet's next sequence number, in the same
+ * statement group that updates the balance. tbl_wallets.balance is a cache of the ledger sum:
+ * - every snapshot-interval entries a snapshot row stores the balance computed from the ledger,
+ *   and the cached balance is checked against it (mismatches are logged and counted)
+ * - any balance - current or as of a past moment - is the latest snapshot at or before that
+ *   ledger position plus at most snapshot-interval tail entries
+ */
+@Service
+@Slf4j
+public class WalletLedgerService implements SmartInitializingSingleton {
+
+    private final WalletRepository walletRepository;
+    private final WalletActivityRepository walletActivityRepository;
+    private final WalletActivityArchiveRepository walletActivityArchiveRepository;
+    private final WalletSnapshotRepository walletSnapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${equitrack.wallet.ledger.snapshot-interval:100}")
+    private long snapshotInterval;
+
+    public WalletLedgerService(WalletRepository walletRepository,
+                               WalletActivityRepository walletActivityRepository,
+                               WalletActivityArchiveRepository walletActivityArchiveRepository,
+                               WalletSnapshotRepository walletSnapshotRepository,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.walletActivityRepository = walletActivityRepository;
+        this.walletActivityArchiveRepository = walletActivityArchiveRepository;
+        this.walletSnapshotRepository = walletSnapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Called after a ledger append, in the same transaction (the wallet row is still locked):
+     * writes a snapshot when the wallet's ledger position reaches a multiple of the interval
+     */
+    public void snapshotIfDue(WalletEntity wallet) {
+        snapshotIfDue(wallet, 1);
+    }
+
+    /**
+     * Same after a group commit of several entries: snapshots the latest multiple of the interval
+     * the batch reached or passed
+     */
+    public void snapshotIfDue(WalletEntity wallet, long appended) {
+        Long seq = wallet.getLedgerSeq();
+        if (seq == null || seq == 0) {
+            return;
+        }
+        long due = seq - seq % snapshotInterval;
+        if (due == 0 || due <= seq - appended) {
+            return;
+        }
+        BigDecimal ledgerBalance = balanceAt(wallet.getId(), due);
+        if (due == seq) {
+            // Only the newest position can be checked against the cached balance
+            verify(wallet, seq, ledgerBalance);
+        }
+        walletSnapshotRepository.save(WalletSnapshotEntity.builder()
+                .walletId(wallet.getId())
+                .sequenceNo(due)
+                .balance(ledgerBalance)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Balance after ledger entry seq: newest snapshot at or before it + the entries after it
+     * (for old positions part of that tail may already be in the archive table)
+     */
+    public BigDecimal balanceAt(Long walletId, long seq) {
+        Optional<WalletSnapshotEntity> snapshot = walletSnapshotRepository
+                .findFirstByWalletIdAndSequenceNoLessThanEqualOrderBySequenceNoDesc(walletId, seq);
+        BigDecimal base = snapshot.map(WalletSnapshotEntity::getBalance).orElse(BigDecimal.ZERO);
+        long from = snapshot.map(WalletSnapshotEntity::getSequenceNo).orElse(0L);
+        if (from == seq) {
+            return base;
+        }
+        return base.add(walletActivityRepository.sumLedgerRange(walletId, from, seq))
+                .add(walletActivityArchiveRepository.sumLedgerRange(walletId, from, seq));
+    }
+
+    /**
+     * Balance of a wallet as of a point in time (now if asOf is null), computed from the ledger
+     */
+    public WalletBalanceDTO balanceAsOf(Long walletId, LocalDateTime asOf) {
+        if (!walletRepository.existsById(walletId)) {
+            throw new RuntimeException("Wallet not found with ID: " + walletId);
+        }
+        LocalDateTime at = asOf != null ? asOf : LocalDateTime.now();
+        Long seq = walletActivityRepository.findLastSequenceAt(walletId, at);
+        Long archivedSeq = walletActivityArchiveRepository.findLastSequenceAt(walletId, at);
+        long position = Math.max(seq != null ? seq : 0L, archivedSeq != null ? archivedSeq : 0L);
+        return WalletBalanceDTO.builder()
+                .walletId(walletId)
+                .balance(balanceAt(walletId, position))
+                .sequenceNo(position)
+                .asOf(at)
+                .build();
+    }
+
+    /**
+     * Balance of a wallet just before a point in time (activities at exactly that moment excluded)
+     */
+    public BigDecimal balanceBefore(Long walletId, LocalDateTime at) {
+        Long seq = walletActivityRepository.findLastSequenceBefore(walletId, at);
+        Long archivedSeq = walletActivityArchiveRepository.findLastSequenceBefore(walletId, at);
+        return balanceAt(walletId, Math.max(seq != null ? seq : 0L, archivedSeq != null ? archivedSeq : 0L));
+    }
+
+    /**
+     * Runs while the context starts, before the web server and the schedulers do: a deposit or
+     * withdrawal on a wallet without a ledger position would add 1 to NULL and store NULL
+     * sequence numbers, so no request may reach a wallet before it is backfilled
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfillLedger();
+    }
+
+    /**
+     * Wallets that existed before the ledger get sequence numbers for their activities (oldest
+     * first) and a snapshot of their current balance as the starting point of the ledger
+     */
+    public void backfillLedger() {
+        long afterId = 0L;
+        int migrated = 0;
+        while (true) {
+            List<Long> walletIds = walletRepository.findIdsWithoutLedger(afterId, PageRequest.of(0, 500));
+            if (walletIds.isEmpty()) {
+                break;
+            }
+            for (Long walletId : walletIds) {
+                Boolean done = transactionTemplate.execute(tx -> backfillWallet(walletId));
+                if (Boolean.TRUE.equals(done)) {
+                    migrated++;
+                }
+            }
+            afterId = walletIds.get(walletIds.size() - 1);
+        }
+        if (migrated > 0) {
+            log.info("📒 Wallet ledger backfilled for {} wallets", migrated);
+        }
+    }
+
+    private boolean backfillWallet(Long walletId) {
+        // Locked, so no balance change (and no other node's backfill) runs in between
+        WalletEntity wallet = walletRepository.findByIdForUpdate(walletId).orElse(null);
+        if (wallet == null || wallet.getLedgerSeq() != null) {
+            return false;
+        }
+        List<Long> activityIds = walletActivityRepository.findUnsequencedIds(walletId);
+        long seq = 0;
+        for (Long activityId : activityIds) {
+            walletActivityRepository.setSequenceNo(activityId, ++seq);
+        }
+        walletRepository.setLedgerSeq(walletId, seq);
+
+        if (seq > 0 || wallet.getBalance().signum() != 0) {
+            // Older wallets may predate activity logging - the cached balance is the starting point
+            BigDecimal ledgerBalance = walletActivityRepository.sumLedgerRange(walletId, 0L, seq);
+            if (ledgerBalance.compareTo(wallet.getBalance()) != 0) {
+                log.warn("⚠️ Wallet {} history sums to {} but balance is {} - snapshot starts from the balance",
+                        walletId, ledgerBalance, wallet.getBalance());
+            }
+            walletSnapshotRepository.save(WalletSnapshotEntity.builder()
+                    .walletId(walletId)
+                    .sequenceNo(seq)
+                    .balance(wallet.getBalance())
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        return true;
+    }
+
+    private void verify(WalletEntity wallet, long seq, BigDecimal ledgerBalance) {
+        if (ledgerBalance.compareTo(wallet.getBalance()) != 0) {
+            meterRegistry.counter("equitrack.wallet.ledger.mismatch").increment();
+            log.error("❌ Wallet {} cached balance {} differs from ledger balance {} at entry {}",
+                    wallet.getId(), wallet.getBalance(), ledgerBalance, seq);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package io.equitrack.service;
+
+import io.equitrack.dto.WalletReconciliationRowDTO;
+import io.equitrack.entity.WalletEntity;
+import io.equitrack.entity.WalletReconciliationIssueEntity;
+import io.equitrack.repository.ProfileRepository;
+import io.equitrack.repository.WalletReconciliationIssueRepository;
+import io.equitrack.repository.WalletRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * NIGHTLY WALLET BALANCE RECONCILIATION (tbl_wallets.balance vs. the ledger)
+ *
+ * Every wallet's cached balance is compared with its ledger balance (latest snapshot + the
+ * entries after it). The wallet id space is split into partitions that run in parallel on the
+ * batch pool (BatchJobRunner); each partition walks its range in id chunks with ONE grouped
+ * query per chunk, so millions of wallets take a few thousand statements, not millions.
+ * - Mismatches are written to tbl_wallet_reconciliation_issues with the chunk's checkpoint
+ * - With auto-repair on, the wallet is locked, re-checked, and its cached balance reset to
+ *   the ledger value (the ledger is the source of truth)
+ * - A crashed or taken-over run resumes from its last committed chunk
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class WalletReconciliationService {
+
+    private static final String RECONCILE_JOB = "wallet-reconciliation";
+
+    private final WalletRepository walletRepository;
+    private final WalletReconciliationIssueRepository walletReconciliationIssueRepository;
+    private final ProfileRepository profileRepository;
+    private final WalletLedgerService walletLedgerService;
+    private final BatchJobRunner batchJobRunner;
+    private final JobLockService jobLockService;
+    private final MeterRegistry meterRegistry;
+
+    // Wallet ids covered by one grouped query
+    @Value("${equitrack.wallet.reconcile.chunk-size:5000}")
+    private long chunkSize;
+
+    @Value("${equitrack.wallet.reconcile.auto-repair:false}")
+    private boolean autoRepair;
+
+    @Scheduled(cron = "${equitrack.wallet.reconcile.cron:0 0 2 * * *}")
+    public void reconcileNightly() {
+        String occurrence = LocalDate.now().toString();
+        jobLockService.runExclusive(RECONCILE_JOB, occurrence, () -> reconcile(occurrence));
+    }
+
+    /**
+     * Runs (or resumes) one reconciliation over all wallets
+     * @return number of wallets checked
+     */
+    public long reconcile(String occurrence) {
+        long startNanos = System.nanoTime();
+        long checked = batchJobRunner.run(RECONCILE_JOB, occurrence,
+                walletRepository.findMinId(), walletRepository.findMaxId(),
+                (afterId, rangeEnd) -> {
+                    if (afterId >= rangeEnd) {
+                        return null;
+                    }
+                    long upToId = Math.min(rangeEnd, afterId + chunkSize);
+                    List<WalletReconciliationRowDTO> rows = walletRepository.findReconciliationRows(afterId, upToId);
+                    for (WalletReconciliationRowDTO row : rows) {
+                        if (row.getCachedBalance().compareTo(row.getLedgerBalance()) != 0) {
+                            report(occurrence, row);
+                        }
+                    }
+                    return new BatchJobRunner.Chunk(upToId, rows.size());
+                });
+
+        List<WalletReconciliationIssueEntity> issues =
+                walletReconciliationIssueRepository.findByOccurrenceOrderByWalletId(occurrence);
+        long repaired = issues.stream()
+                .filter(issue -> WalletReconciliationIssueEntity.STATUS_REPAIRED.equals(issue.getStatus()))
+                .count();
+        log.info("🧮 Wallet reconciliation [{}]: {} wallets checked, {} mismatches, {} repaired in {} ms",
+                occurrence, checked, issues.size(), repaired, (System.nanoTime() - startNanos) / 1_000_000);
+        return checked;
+    }
+
+    // Runs in the chunk transaction - the report row commits with the checkpoint
+    private void report(String occurrence, WalletReconciliationRowDTO row) {
+        meterRegistry.counter("equitrack.wallet.reconcile.mismatches").increment();
+        log.warn("⚠️ Wallet {} cached balance {} differs from ledger balance {} at entry {}",
+                row.getWalletId(), row.getCachedBalance(), row.getLedgerBalance(), row.getSequenceNo());
+
+        WalletReconciliationIssueEntity issue = WalletReconciliationIssueEntity.builder()
+                .occurrence(occurrence)
+                .walletId(row.getWalletId())
+                .sequenceNo(row.getSequenceNo())
+                .cachedBalance(row.getCachedBalance())
+                .ledgerBalance(row.getLedgerBalance())
+                .status(WalletReconciliationIssueEntity.STATUS_MISMATCH)
+                .detectedAt(LocalDateTime.now())
+                .build();
+        if (autoRepair) {
+            repair(issue);
+        }
+        walletReconciliationIssueRepository.save(issue);
+    }
+
+    private void repair(WalletReconciliationIssueEntity issue) {
+        // Locked, so no balance change runs between the check and the fix
+        WalletEntity wallet = walletRepository.findByIdForUpdate(issue.getWalletId()).orElse(null);
+        if (wallet == null) {
+            return;  // Deleted since the query ran
+        }
+        BigDecimal ledgerBalance = walletLedgerService.balanceAt(wallet.getId(), wallet.getLedgerSeq());
+        LocalDateTime now = LocalDateTime.now();
+        if (ledgerBalance.compareTo(wallet.getBalance()) == 0) {
+            issue.setStatus(WalletReconciliationIssueEntity.STATUS_RESOLVED);
+            return;
+        }
+        walletRepository.repairBalance(wallet.getId(), wallet.getLedgerSeq(), ledgerBalance, now);
+        profileRepository.incrementWalletDataVersionForWallet(wallet.getId());  // Invalidate cached statements
+        meterRegistry.counter("equitrack.wallet.reconcile.repaired").increment();
+        log.info("🔧 Wallet {} balance reset from {} to ledger balance {}", wallet.getId(), wallet.getBalance(), ledgerBalance);
+        issue.setStatus(WalletReconciliationIssueEntity.STATUS_REPAIRED);
+        issue.setRepairedAt(now);
+    }
+}
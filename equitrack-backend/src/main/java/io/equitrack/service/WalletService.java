@@ -1,18 +1,36 @@
 package io.equitrack.service;
 
+import io.equitrack.dto.BalanceHistoryDTO;
+import io.equitrack.dto.ConvertedTotalDTO;
+import io.equitrack.dto.WalletBalanceDTO;
+import io.equitrack.dto.WalletBatchLegDTO;
 import io.equitrack.entity.ProfileEntity;
 import io.equitrack.entity.WalletEntity;
 import io.equitrack.entity.WalletActivityEntity; // NEW Import: Entity for logging
 import io.equitrack.repository.ProfileRepository;
 import io.equitrack.repository.WalletRepository;
 import io.equitrack.repository.WalletActivityRepository; // NEW Import: Repository for logging
+import io.equitrack.repository.WalletActivityArchiveRepository;
+import io.equitrack.repository.WalletActivityRepositoryCustom.LedgerEntry;
+import io.equitrack.repository.WalletSnapshotRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Service layer for Wallet operations
@@ -26,6 +44,20 @@ public class WalletService {
     private final WalletRepository walletRepository;
     private final ProfileRepository profileRepository;
     private final WalletActivityRepository walletActivityRepository; // NEW: Inject Wallet Activity Repository
+    private final TransactionRetry transactionRetry;
+    private final WalletLedgerService walletLedgerService;
+    private final WalletSnapshotRepository walletSnapshotRepository;
+    private final WalletActivityArchiveRepository walletActivityArchiveRepository;
+    private final WalletBalanceHistoryService walletBalanceHistoryService;
+    private final CurrencyService currencyService;
+
+    // Activities removed per statement when a wallet is deleted
+    @Value("${equitrack.wallet.delete-chunk-size:1000}")
+    private int deleteChunkSize;
+
+    // Most legs accepted by one batch operation
+    @Value("${equitrack.wallet.batch.max-legs:50}")
+    private int maxBatchLegs;
 
     /**
      * Creates a new wallet for a profile
@@ -35,6 +67,17 @@ public class WalletService {
      * @throws RuntimeException if profile not found or wallet type already exists
      */
     public WalletEntity createWallet(Long profileId, String walletType) {
+        return createWallet(profileId, walletType, null);
+    }
+
+    /**
+     * Creates a new wallet in a given currency
+     * @param currency ISO 4217 code with an exchange rate, or null for PHP
+     * @throws RuntimeException if profile not found, wallet type already exists or the currency is unsupported
+     */
+    public WalletEntity createWallet(Long profileId, String walletType, String currency) {
+        String walletCurrency = currency != null ? validCurrency(currency) : "PHP";
+
         // Find the profile or throw exception
         ProfileEntity profile = profileRepository.findById(profileId)
                 .orElseThrow(() -> new RuntimeException("Profile not found with ID: " + profileId));
@@ -52,11 +95,13 @@ public class WalletService {
                 .profile(profile)
                 .balance(BigDecimal.ZERO)
                 .walletType(walletType)
-                .currency("PHP")
+                .currency(walletCurrency)
                 .isActive(true)
                 .build();
 
-        return walletRepository.save(wallet);
+        WalletEntity saved = walletRepository.save(wallet);
+        profileRepository.incrementWalletDataVersion(profileId);  // Invalidate cached statements
+        return saved;
     }
 
     /**
@@ -88,94 +133,104 @@ public class WalletService {
 
     /**
      * Deposit money into a wallet
+     * The balance is changed by one conditional UPDATE (no read-modify-write), so concurrent
+     * deposits never overwrite each other; the activity row is written in the same transaction
      * @param walletId The wallet ID
      * @param amount Amount to deposit (must be positive)
      * @return Updated wallet entity
      * @throws RuntimeException if wallet not found or amount is invalid
      */
     public WalletEntity deposit(Long walletId, BigDecimal amount) {
-        WalletEntity wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
-
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new RuntimeException("Deposit amount must be positive");
         }
 
-        if (!wallet.getIsActive()) {
+        LocalDateTime now = LocalDateTime.now();
+        if (walletRepository.creditBalance(walletId, amount, now) == 0) {
+            // Nothing updated - find out why for the error message
+            walletRepository.findById(walletId)
+                    .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
             throw new RuntimeException("Cannot deposit to inactive wallet");
         }
 
-        wallet.deposit(amount);
-        WalletEntity updatedWallet = walletRepository.save(wallet);
-
-        // NEW: Record the DEPOSIT activity log
-        WalletActivityEntity depositActivity = WalletActivityEntity.builder()
-                .wallet(updatedWallet)
-                .profile(updatedWallet.getProfile())
-                .amount(amount)
-                .type("DEPOSIT")
-                .build();
-        walletActivityRepository.save(depositActivity);
+        // Record the DEPOSIT activity log
+        walletActivityRepository.insertForWallet(walletId, amount, "DEPOSIT", null, now);
+        profileRepository.incrementWalletDataVersionForWallet(walletId);  // Invalidate cached statements
 
-        return updatedWallet;
+        WalletEntity wallet = reload(walletId);
+        walletLedgerService.snapshotIfDue(wallet);
+        return wallet;
     }
 
     /**
      * Withdraw money from a wallet
+     * The UPDATE only applies while balance >= amount, so two concurrent withdrawals can never
+     * take the wallet below zero; zero affected rows means the withdrawal was refused
      * @param walletId The wallet ID
      * @param amount Amount to withdraw
      * @return Updated wallet entity
      * @throws RuntimeException if wallet not found, insufficient balance, or invalid amount
      */
     public WalletEntity withdraw(Long walletId, BigDecimal amount) {
-        WalletEntity wallet = walletRepository.findById(walletId)
-                .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
-
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new RuntimeException("Withdrawal amount must be positive");
         }
 
-        if (!wallet.getIsActive()) {
-            throw new RuntimeException("Cannot withdraw from inactive wallet");
-        }
-
-        if (!wallet.withdraw(amount)) {
+        LocalDateTime now = LocalDateTime.now();
+        if (walletRepository.debitBalance(walletId, amount, now) == 0) {
+            // Nothing updated - find out why for the error message
+            WalletEntity wallet = walletRepository.findById(walletId)
+                    .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
+            if (!wallet.getIsActive()) {
+                throw new RuntimeException("Cannot withdraw from inactive wallet");
+            }
             throw new RuntimeException("Insufficient balance. Available: " + wallet.getBalance() + ", Requested: " + amount);
         }
 
-        WalletEntity updatedWallet = walletRepository.save(wallet);
+        // Record the WITHDRAW activity log (negative for clear history tracking)
+        walletActivityRepository.insertForWallet(walletId, amount.negate(), "WITHDRAW", null, now);
+        profileRepository.incrementWalletDataVersionForWallet(walletId);  // Invalidate cached statements
 
-        // NEW: Record the WITHDRAW activity log
-        WalletActivityEntity withdrawActivity = WalletActivityEntity.builder()
-                .wallet(updatedWallet)
-                .profile(updatedWallet.getProfile())
-                .amount(amount.negate()) // Store as negative for clear history tracking
-                .type("WITHDRAW")
-                .build();
-        walletActivityRepository.save(withdrawActivity);
-
-        return updatedWallet;
+        WalletEntity wallet = reload(walletId);
+        walletLedgerService.snapshotIfDue(wallet);
+        return wallet;
     }
 
     /**
      * Transfer money between two wallets
+     * Both wallet rows are locked in ascending id order, so concurrent A->B and B->A transfers
+     * queue behind each other instead of deadlocking. The whole transfer is its own transaction
+     * and is retried (bounded) if the database still picks it as a deadlock or lock-timeout victim.
+     * Called inside a transaction (an idempotent request) it joins it, and the caller retries.
      * @param fromWalletId Source wallet ID
      * @param toWalletId Destination wallet ID
      * @param amount Amount to transfer
      * @throws RuntimeException if wallets not found or insufficient balance
      */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void transfer(Long fromWalletId, Long toWalletId, BigDecimal amount) {
         // Validate amount
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new RuntimeException("Transfer amount must be positive");
         }
+        if (fromWalletId.equals(toWalletId)) {
+            throw new RuntimeException("Source and destination wallet must be different");
+        }
 
-        // Get both wallets
-        WalletEntity fromWallet = walletRepository.findById(fromWalletId)
-                .orElseThrow(() -> new RuntimeException("Source wallet not found with ID: " + fromWalletId));
+        transactionRetry.execute("wallet-transfer", tx -> {
+            transferLocked(fromWalletId, toWalletId, amount);
+            return null;
+        });
+    }
 
-        WalletEntity toWallet = walletRepository.findById(toWalletId)
-                .orElseThrow(() -> new RuntimeException("Destination wallet not found with ID: " + toWalletId));
+    private void transferLocked(Long fromWalletId, Long toWalletId, BigDecimal amount) {
+        // Lock both rows, lower id first
+        Long firstId = Math.min(fromWalletId, toWalletId);
+        Long secondId = Math.max(fromWalletId, toWalletId);
+        WalletEntity first = lockWallet(firstId, fromWalletId);
+        WalletEntity second = lockWallet(secondId, fromWalletId);
+        WalletEntity fromWallet = firstId.equals(fromWalletId) ? first : second;
+        WalletEntity toWallet = firstId.equals(fromWalletId) ? second : first;
 
         // Validate wallets are active
         if (!fromWallet.getIsActive()) {
@@ -184,50 +239,246 @@ public class WalletService {
         if (!toWallet.getIsActive()) {
             throw new RuntimeException("Destination wallet is inactive");
         }
-
-        // Perform transfer
-        if (!fromWallet.withdraw(amount)) {
+        if (!fromWallet.canWithdraw(amount)) {
             throw new RuntimeException("Insufficient balance in source wallet. Available: " +
                     fromWallet.getBalance() + ", Requested: " + amount);
         }
+        Long fromProfileId = fromWallet.getProfile().getId();
+        Long toProfileId = toWallet.getProfile().getId();
+
+        // Perform transfer - rows are locked, the guarded updates cannot miss
+        LocalDateTime now = LocalDateTime.now();
+        if (walletRepository.debitBalance(fromWalletId, amount, now) == 0
+                || walletRepository.creditBalance(toWalletId, amount, now) == 0) {
+            throw new IllegalStateException("Transfer " + fromWalletId + " -> " + toWalletId + " was not applied");
+        }
 
-        toWallet.deposit(amount);
+        // Record two activities for the transfer (OUT and IN)
+        walletActivityRepository.insertForWallet(fromWalletId, amount.negate(), "TRANSFER_OUT", toWalletId, now);
+        walletActivityRepository.insertForWallet(toWalletId, amount, "TRANSFER_IN", fromWalletId, now);
 
-        // Save both wallets
-        walletRepository.save(fromWallet);
-        walletRepository.save(toWallet);
+        walletLedgerService.snapshotIfDue(reload(fromWalletId));
+        walletLedgerService.snapshotIfDue(reload(toWalletId));
 
-        // NEW: Record two activities for the transfer (OUT and IN)
+        // Invalidate cached statements for both owners (usually the same profile) - profile rows
+        // are locked lower id first too, so A->B and B->A between two users cannot deadlock here
+        profileRepository.incrementWalletDataVersion(Math.min(fromProfileId, toProfileId));
+        if (!toProfileId.equals(fromProfileId)) {
+            profileRepository.incrementWalletDataVersion(Math.max(fromProfileId, toProfileId));
+        }
+    }
 
-        // 1. Record TRANSFER_OUT from source wallet
-        WalletActivityEntity transferOutActivity = WalletActivityEntity.builder()
-                .wallet(fromWallet)
-                .profile(fromWallet.getProfile())
-                .amount(amount.negate())
-                .type("TRANSFER_OUT")
-                .relatedWalletId(toWalletId)
-                .build();
-        walletActivityRepository.save(transferOutActivity);
-
-        // 2. Record TRANSFER_IN to destination wallet
-        WalletActivityEntity transferInActivity = WalletActivityEntity.builder()
-                .wallet(toWallet)
-                .profile(toWallet.getProfile())
-                .amount(amount)
-                .type("TRANSFER_IN")
-                .relatedWalletId(fromWalletId)
-                .build();
-        walletActivityRepository.save(transferInActivity);
+    /**
+     * Apply several deposits / withdrawals / transfers as one all-or-nothing operation
+     * Every involved wallet is locked once, in ascending id order; the legs are validated in
+     * order against the running balances, then each wallet gets one UPDATE for its net change
+     * and all activity rows go in with one batched INSERT. Retried like a transfer.
+     * @param legs Legs in the order they apply
+     * @return The involved wallets after the batch, by id
+     * @throws RuntimeException if a leg is invalid, a wallet is missing or inactive, or a
+     *         leg would overdraw its source wallet - nothing is applied then
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<WalletEntity> applyBatch(List<WalletBatchLegDTO> legs) {
+        if (legs == null || legs.isEmpty()) {
+            throw new RuntimeException("A batch needs at least one leg");
+        }
+        if (legs.size() > maxBatchLegs) {
+            throw new RuntimeException("A batch can have at most " + maxBatchLegs + " legs");
+        }
+        for (int i = 0; i < legs.size(); i++) {
+            validateLeg(i + 1, legs.get(i));
+        }
+
+        return transactionRetry.execute("wallet-batch", tx -> applyBatchLocked(legs));
+    }
+
+    private List<WalletEntity> applyBatchLocked(List<WalletBatchLegDTO> legs) {
+        // Lock every involved wallet once, lower id first (same order as transfers - no deadlocks)
+        TreeSet<Long> walletIds = new TreeSet<>();
+        for (WalletBatchLegDTO leg : legs) {
+            if (leg.getFromWalletId() != null) {
+                walletIds.add(leg.getFromWalletId());
+            }
+            if (leg.getToWalletId() != null) {
+                walletIds.add(leg.getToWalletId());
+            }
+        }
+        Map<Long, WalletEntity> wallets = new LinkedHashMap<>();
+        for (Long walletId : walletIds) {
+            WalletEntity wallet = walletRepository.findByIdForUpdate(walletId)
+                    .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
+            if (!wallet.getIsActive()) {
+                throw new RuntimeException("Wallet " + walletId + " is inactive");
+            }
+            wallets.put(walletId, wallet);
+        }
+
+        // Walk the legs against running balances; sequence numbers are taken in leg order
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        Map<Long, Long> sequences = new HashMap<>();
+        wallets.forEach((id, wallet) -> {
+            balances.put(id, wallet.getBalance());
+            sequences.put(id, wallet.getLedgerSeq());
+        });
+        LocalDateTime now = LocalDateTime.now();
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (int i = 0; i < legs.size(); i++) {
+            WalletBatchLegDTO leg = legs.get(i);
+            Long fromId = leg.getFromWalletId();
+            Long toId = leg.getToWalletId();
+            BigDecimal amount = leg.getAmount();
+            if (fromId != null) {
+                BigDecimal available = balances.get(fromId);
+                if (available.compareTo(amount) < 0) {
+                    throw new RuntimeException("Leg " + (i + 1) + ": insufficient balance in wallet " + fromId
+                            + ". Available: " + available + ", Requested: " + amount);
+                }
+                balances.put(fromId, available.subtract(amount));
+                entries.add(ledgerEntry(wallets.get(fromId), amount.negate(),
+                        toId != null ? "TRANSFER_OUT" : "WITHDRAW", toId, sequences.merge(fromId, 1L, Long::sum), now));
+            }
+            if (toId != null) {
+                balances.put(toId, balances.get(toId).add(amount));
+                entries.add(ledgerEntry(wallets.get(toId), amount,
+                        fromId != null ? "TRANSFER_IN" : "DEPOSIT", fromId, sequences.merge(toId, 1L, Long::sum), now));
+            }
+        }
+
+        // One UPDATE per wallet for its net change, then every activity row in one batch
+        Set<Long> profileIds = new TreeSet<>();
+        for (WalletEntity wallet : wallets.values()) {
+            Long walletId = wallet.getId();
+            long walletEntries = sequences.get(walletId) - wallet.getLedgerSeq();
+            BigDecimal delta = balances.get(walletId).subtract(wallet.getBalance());
+            if (walletRepository.applyBatchEntries(walletId, delta, walletEntries, now) == 0) {
+                throw new IllegalStateException("Batch leg for wallet " + walletId + " was not applied");
+            }
+            profileIds.add(wallet.getProfile().getId());
+        }
+        walletActivityRepository.insertLedgerEntries(entries);
+
+        List<WalletEntity> updated = new ArrayList<>(wallets.size());
+        for (WalletEntity wallet : wallets.values()) {
+            WalletEntity reloaded = reload(wallet.getId());
+            walletLedgerService.snapshotIfDue(reloaded, sequences.get(wallet.getId()) - wallet.getLedgerSeq());
+            updated.add(reloaded);
+        }
+
+        // Invalidate cached statements of every owner involved
+        for (Long profileId : profileIds) {
+            profileRepository.incrementWalletDataVersion(profileId);
+        }
+        return updated;
+    }
+
+    private void validateLeg(int legNo, WalletBatchLegDTO leg) {
+        if (leg == null || leg.getType() == null) {
+            throw new RuntimeException("Leg " + legNo + ": type is required (DEPOSIT, WITHDRAW or TRANSFER)");
+        }
+        if (leg.getAmount() == null || leg.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("Leg " + legNo + ": amount must be positive");
+        }
+        switch (leg.getType().toUpperCase(Locale.ROOT)) {
+            case "DEPOSIT" -> {
+                if (leg.getToWalletId() == null || leg.getFromWalletId() != null) {
+                    throw new RuntimeException("Leg " + legNo + ": a DEPOSIT needs toWalletId only");
+                }
+            }
+            case "WITHDRAW" -> {
+                if (leg.getFromWalletId() == null || leg.getToWalletId() != null) {
+                    throw new RuntimeException("Leg " + legNo + ": a WITHDRAW needs fromWalletId only");
+                }
+            }
+            case "TRANSFER" -> {
+                if (leg.getFromWalletId() == null || leg.getToWalletId() == null) {
+                    throw new RuntimeException("Leg " + legNo + ": a TRANSFER needs fromWalletId and toWalletId");
+                }
+                if (leg.getFromWalletId().equals(leg.getToWalletId())) {
+                    throw new RuntimeException("Leg " + legNo + ": source and destination wallet must be different");
+                }
+            }
+            default -> throw new RuntimeException("Leg " + legNo + ": invalid type " + leg.getType()
+                    + " (use DEPOSIT, WITHDRAW or TRANSFER)");
+        }
+    }
+
+    private LedgerEntry ledgerEntry(WalletEntity wallet, BigDecimal amount, String type, Long relatedWalletId,
+                                    long sequenceNo, LocalDateTime now) {
+        return new LedgerEntry(wallet.getId(), wallet.getProfile().getId(), amount, type, relatedWalletId, sequenceNo, now);
+    }
+
+    // Only currencies with an exchange rate can be counted in the profile's total
+    private String validCurrency(String currency) {
+        if (!currencyService.isSupported(currency)) {
+            throw new RuntimeException("Unsupported currency: " + currency);
+        }
+        return currency.toUpperCase(Locale.ROOT);
+    }
+
+    private WalletEntity lockWallet(Long walletId, Long fromWalletId) {
+        String role = walletId.equals(fromWalletId) ? "Source" : "Destination";
+        return walletRepository.findByIdForUpdate(walletId)
+                .orElseThrow(() -> new RuntimeException(role + " wallet not found with ID: " + walletId));
     }
 
     /**
-     * Calculate total balance across all active wallets for a profile
+     * Calculate total balance across all active wallets for a profile, in the profile's base currency
+     * One GROUP BY currency query; each currency's sum is converted with the cached rate table
      * @param profileId The profile ID
-     * @return Total balance in BigDecimal
+     * @return Total in the base currency; wallets whose currency has no exchange rate are left
+     *         out and their currencies listed in unconvertedCurrencies
      */
-    public BigDecimal getTotalBalance(Long profileId) {
-        BigDecimal total = walletRepository.getTotalBalanceByProfileId(profileId);
-        return total != null ? total : BigDecimal.ZERO;
+    @Transactional(readOnly = true)
+    public ConvertedTotalDTO getTotalBalance(Long profileId) {
+        return currencyService.sumIn(walletRepository.getTotalBalancesByCurrency(profileId), getBaseCurrency(profileId));
+    }
+
+    /**
+     * Currency the profile's wallet totals are shown in
+     * @param profileId The profile ID
+     * @return ISO 4217 code (the default for profiles that never chose one)
+     */
+    @Transactional(readOnly = true)
+    public String getBaseCurrency(Long profileId) {
+        return profileRepository.findById(profileId)
+                .map(ProfileEntity::getBaseCurrency)
+                .orElse(ProfileEntity.DEFAULT_BASE_CURRENCY);
+    }
+
+    /**
+     * Balance computed from the ledger (snapshot + tail), now or as of a past moment
+     * @param walletId The wallet ID
+     * @param asOf Point in time, null for now
+     * @return Ledger balance and the last entry it includes
+     * @throws RuntimeException if wallet not found
+     */
+    @Transactional(readOnly = true)
+    public WalletBalanceDTO getBalanceAsOf(Long walletId, LocalDateTime asOf) {
+        return walletLedgerService.balanceAsOf(walletId, asOf);
+    }
+
+    /**
+     * Balance of a wallet over time, one point per bucket (for charts)
+     * @param walletId The wallet ID
+     * @param bucket HOUR, DAY, WEEK, MONTH or YEAR
+     * @param from Range start, null for 30 buckets before to
+     * @param to Range end, null for now
+     * @return Opening balance and the balance at the end of every bucket
+     * @throws RuntimeException if wallet not found or the range is invalid
+     */
+    @Transactional(readOnly = true)
+    public BalanceHistoryDTO getBalanceHistory(Long walletId, String bucket, LocalDateTime from, LocalDateTime to) {
+        return walletBalanceHistoryService.getWalletHistory(walletId, bucket, from, to);
+    }
+
+    /**
+     * Combined balance of all wallets of a profile over time
+     * @throws RuntimeException if the range is invalid
+     */
+    @Transactional(readOnly = true)
+    public BalanceHistoryDTO getProfileBalanceHistory(Long profileId, String bucket, LocalDateTime from, LocalDateTime to) {
+        return walletBalanceHistoryService.getProfileHistory(profileId, bucket, from, to);
     }
 
     /**
@@ -241,7 +492,9 @@ public class WalletService {
                 .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
 
         wallet.setIsActive(false);
-        return walletRepository.save(wallet);
+        WalletEntity saved = walletRepository.save(wallet);
+        profileRepository.incrementWalletDataVersion(wallet.getProfile().getId());  // Invalidate cached statements
+        return saved;
     }
 
     /**
@@ -255,7 +508,9 @@ public class WalletService {
                 .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
 
         wallet.setIsActive(true);
-        return walletRepository.save(wallet);
+        WalletEntity saved = walletRepository.save(wallet);
+        profileRepository.incrementWalletDataVersion(wallet.getProfile().getId());  // Invalidate cached statements
+        return saved;
     }
 
     /**
@@ -264,7 +519,7 @@ public class WalletService {
      * @param walletId The wallet ID
      * @param updatedWallet Wallet entity with updated values
      * @return Updated wallet entity
-     * @throws RuntimeException if wallet not found
+     * @throws RuntimeException if wallet not found or the currency is unsupported
      */
     public WalletEntity updateWallet(Long walletId, WalletEntity updatedWallet) {
         WalletEntity wallet = walletRepository.findById(walletId)
@@ -272,7 +527,7 @@ public class WalletService {
 
         // Update only allowed fields
         if (updatedWallet.getCurrency() != null) {
-            wallet.setCurrency(updatedWallet.getCurrency());
+            wallet.setCurrency(validCurrency(updatedWallet.getCurrency()));
         }
         if (updatedWallet.getWalletType() != null) {
             // Check if new wallet type already exists for this profile
@@ -286,22 +541,53 @@ public class WalletService {
             wallet.setWalletType(updatedWallet.getWalletType());
         }
 
-        return walletRepository.save(wallet);
+        WalletEntity saved = walletRepository.save(wallet);
+        profileRepository.incrementWalletDataVersion(wallet.getProfile().getId());  // Invalidate cached statements
+        return saved;
     }
 
     /**
      * Delete a wallet permanently
+     * The wallet is deactivated first so nothing new is booked on it, then its activities (hot and
+     * archived) are deleted in bounded chunks (one short transaction each), and finally its snapshots and the
+     * wallet row go in one transaction. A delete interrupted half-way can simply be repeated.
      * @param walletId The wallet ID
      * @throws RuntimeException if wallet not found
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteWallet(Long walletId) {
-        if (!walletRepository.existsById(walletId)) {
-            throw new RuntimeException("Wallet not found with ID: " + walletId);
+        Long profileId = transactionRetry.execute("wallet-delete", tx -> {
+            WalletEntity wallet = walletRepository.findByIdForUpdate(walletId)
+                    .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
+            wallet.setIsActive(false);
+            return wallet.getProfile().getId();
+        });
+
+        while (true) {
+            Integer deleted = transactionRetry.execute("wallet-delete-activities", tx -> {
+                List<Long> ids = walletActivityRepository.findIdsByWalletId(walletId, PageRequest.of(0, deleteChunkSize));
+                return ids.isEmpty() ? 0 : walletActivityRepository.deleteByIdIn(ids);
+            });
+            if (deleted == null || deleted == 0) {
+                break;
+            }
+        }
+        while (true) {
+            Integer deleted = transactionRetry.execute("wallet-delete-archive", tx -> {
+                List<Long> ids = walletActivityArchiveRepository.findIdsByWalletId(walletId, PageRequest.of(0, deleteChunkSize));
+                return ids.isEmpty() ? 0 : walletActivityArchiveRepository.deleteByIdIn(ids);
+            });
+            if (deleted == null || deleted == 0) {
+                break;
+            }
         }
-        // NOTE: The actual cascade deletion of WalletActivityEntity records is now
-        // handled automatically by the configuration in WalletEntity.java.
 
-        walletRepository.deleteById(walletId);
+        transactionRetry.execute("wallet-delete", tx -> {
+            walletSnapshotRepository.deleteByWalletId(walletId);
+            walletRepository.deleteWalletById(walletId);
+            profileRepository.incrementWalletDataVersion(profileId);  // Invalidate cached statements
+            return null;
+        });
     }
 
     /**
@@ -322,4 +608,10 @@ public class WalletService {
     public Optional<WalletEntity> getWalletByProfileAndType(Long profileId, String walletType) {
         return walletRepository.findByProfileIdAndWalletType(profileId, walletType);
     }
-}
\ No newline at end of file
+
+    // Fresh copy after a bulk UPDATE (the persistence context was cleared by it)
+    private WalletEntity reload(Long walletId) {
+        return walletRepository.findById(walletId)
+                .orElseThrow(() -> new RuntimeException("Wallet not found with ID: " + walletId));
+    }
+}
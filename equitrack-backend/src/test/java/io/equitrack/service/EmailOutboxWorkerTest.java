@@ -0,0 +1,217 @@
+package io.equitrack.service;
+
+import com.sun.net.httpserver.HttpServer;
+import io.equitrack.dto.EmailRecipientDTO;
+import io.equitrack.entity.EmailOutboxEntity;
+import io.equitrack.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outbox delivery through the real Brevo client against a local stub server:
+ * message-version batching, read timeouts, retry with backoff and per-row fallback.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EmailOutboxWorkerTest {
+
+    private static final HttpServer STUB = startStub();
+
+    // Request body -> {status, delayMs}; replaced per test
+    private static volatile Function<String, int[]> responder = body -> new int[]{201, 0};
+    private static final List<String> REQUESTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private EmailOutboxWorker emailOutboxWorker;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void brevoStub(DynamicPropertyRegistry registry) {
+        registry.add("brevo.api.base-url", () -> "http://localhost:" + STUB.getAddress().getPort() + "/v3");
+        registry.add("brevo.http.read-timeout-ms", () -> "500");
+        registry.add("equitrack.email.outbox.rate-per-second", () -> "1000");
+        registry.add("equitrack.email.outbox.max-attempts", () -> "3");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.stop(0);
+    }
+
+    @BeforeEach
+    void reset() {
+        emailOutboxRepository.deleteAll();
+        REQUESTS.clear();
+        responder = body -> new int[]{201, 0};
+    }
+
+    @Test
+    void sendsRecipientsWithTheSameTemplateAsOneRequest() throws Exception {
+        emailService.sendBatchEmail("Daily reminder", "<p>Hi {{ params.fullName }}</p>", List.of(
+                recipient("a@test.io", "Ana"), recipient("b@test.io", "Ben"), recipient("c@test.io", "Cy")));
+
+        assertEquals(3, emailOutboxWorker.drainOnce());
+
+        assertEquals(1, REQUESTS.size());
+        assertTrue(REQUESTS.get(0).contains("messageVersions"));
+        assertTrue(REQUESTS.get(0).contains("c@test.io"));
+        assertStatuses(EmailOutboxEntity.STATUS_SENT, 3);
+    }
+
+    @Test
+    void readTimeoutReschedulesWithBackoffAndTheRetrySucceeds() throws Exception {
+        responder = body -> new int[]{201, 2000};
+        emailService.sendEmail("slow@test.io", "Hello", "Body");
+
+        emailOutboxWorker.drainOnce();
+
+        EmailOutboxEntity row = emailOutboxRepository.findAll().get(0);
+        assertEquals(EmailOutboxEntity.STATUS_PENDING, row.getStatus());
+        assertEquals(1, row.getAttempts());
+        assertNotNull(row.getLastError());
+        assertTrue(row.getNextAttemptAt().isAfter(LocalDateTime.now()), "retry must be pushed back");
+
+        // Brevo recovers; make the row due again instead of waiting out the backoff
+        responder = body -> new int[]{201, 0};
+        row.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        emailOutboxRepository.save(row);
+
+        assertEquals(1, emailOutboxWorker.drainOnce());
+        row = emailOutboxRepository.findById(row.getId()).orElseThrow();
+        assertEquals(EmailOutboxEntity.STATUS_SENT, row.getStatus());
+        assertEquals(2, row.getAttempts());
+    }
+
+    @Test
+    void serverErrorsAreRetriedUntilAttemptsRunOut() throws Exception {
+        responder = body -> new int[]{503, 0};
+        emailService.sendEmail("down@test.io", "Hello", "Body");
+
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            EmailOutboxEntity row = emailOutboxRepository.findAll().get(0);
+            row.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+            emailOutboxRepository.save(row);
+            assertEquals(1, emailOutboxWorker.drainOnce());
+        }
+
+        EmailOutboxEntity row = emailOutboxRepository.findAll().get(0);
+        assertEquals(EmailOutboxEntity.STATUS_DEAD, row.getStatus());
+        assertEquals(3, row.getAttempts());
+        assertEquals(3, REQUESTS.size());
+    }
+
+    @Test
+    void rejectedBatchFallsBackToOneRequestPerRecipient() throws Exception {
+        // Brevo rejects any request that contains the bad address
+        responder = body -> new int[]{body.contains("bad@") ? 400 : 201, 0};
+        emailService.sendBatchEmail("Weekly report", "<p>{{ params.fullName }}</p>", List.of(
+                recipient("good@test.io", "Good"), recipient("bad@test.io", "Bad")));
+
+        assertEquals(2, emailOutboxWorker.drainOnce());
+
+        assertEquals(3, REQUESTS.size());  // the batch, then one per row
+        for (EmailOutboxEntity row : emailOutboxRepository.findAll()) {
+            String expected = row.getRecipient().startsWith("bad@")
+                    ? EmailOutboxEntity.STATUS_DEAD : EmailOutboxEntity.STATUS_SENT;
+            assertEquals(expected, row.getStatus(), row.getRecipient());
+        }
+    }
+
+    @Test
+    void purgeDeletesOnlyFinishedRowsPastRetention() throws Exception {
+        responder = body -> new int[]{body.contains("dead@") ? 400 : 201, 0};
+        emailService.sendEmail("old-sent@test.io", "Hello", "Body");
+        emailService.sendEmail("dead@test.io", "Hello", "Body");
+        emailOutboxWorker.drainOnce();
+        emailService.sendEmail("recent-sent@test.io", "Hello", "Body");
+        emailOutboxWorker.drainOnce();
+        emailService.sendEmail("pending@test.io", "Hello", "Body");
+
+        // Everything but the recent row is older than the 30 day retention
+        jdbcTemplate.update("UPDATE tbl_email_outbox SET created_at = ? WHERE recipient <> ?",
+                LocalDateTime.now().minusDays(31), "recent-sent@test.io");
+
+        assertEquals(2, emailOutboxWorker.purge());
+        List<String> left = emailOutboxRepository.findAll().stream().map(EmailOutboxEntity::getRecipient).sorted().toList();
+        assertEquals(List.of("pending@test.io", "recent-sent@test.io"), left);
+    }
+
+    private void assertStatuses(String status, int count) {
+        assertEquals(count, emailOutboxRepository.findAll().stream()
+                .filter(row -> status.equals(row.getStatus()))
+                .count());
+    }
+
+    private static EmailRecipientDTO recipient(String email, String name) {
+        return EmailRecipientDTO.builder()
+                .email(email)
+                .name(name)
+                .params(Map.of("fullName", name))
+                .build();
+    }
+
+    private static HttpServer startStub() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/v3/smtp/email", exchange -> {
+                String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+                REQUESTS.add(body);
+                int[] response = responder.apply(body);
+                if (response[1] > 0) {
+                    try {
+                        Thread.sleep(response[1]);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                byte[] json = (response[0] < 300
+                        ? "{\"messageId\":\"<stub@test.io>\"}"
+                        : "{\"code\":\"stub_error\",\"message\":\"stub\"}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                try {
+                    exchange.sendResponseHeaders(response[0], json.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(json);
+                    }
+                } catch (IOException e) {
+                    exchange.close();  // Client gave up (read timeout)
+                }
+            });
+            server.setExecutor(Executors.newCachedThreadPool());
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start Brevo stub", e);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.equitrack.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Local slot resolution around daylight saving changes: every local minute of the day
+ * must be dispatched exactly once, including the skipped and the repeated hour.
+ */
+class NotificationSlotTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    @Test
+    void skippedHourIsSentRightAfterTheGap() {
+        // 2026-03-29 02:00 CET -> 03:00 CEST; 01:00Z is the first minute after the gap
+        assertEquals(List.of(LocalDateTime.parse("2026-03-29T03:00"), LocalDateTime.parse("2026-03-29T02:00")),
+                NotificationService.dueSlots(Instant.parse("2026-03-29T01:00:00Z"), BERLIN));
+        assertEquals(List.of(LocalDateTime.parse("2026-03-29T03:30"), LocalDateTime.parse("2026-03-29T02:30")),
+                NotificationService.dueSlots(Instant.parse("2026-03-29T01:30:00Z"), BERLIN));
+        assertEquals(List.of(LocalDateTime.parse("2026-03-29T04:00")),
+                NotificationService.dueSlots(Instant.parse("2026-03-29T02:00:00Z"), BERLIN));
+    }
+
+    @Test
+    void repeatedHourIsSentOnlyOnItsFirstPass() {
+        // 2026-10-25 03:00 CEST -> 02:00 CET; 02:15 happens at 00:15Z and again at 01:15Z
+        assertEquals(List.of(LocalDateTime.parse("2026-10-25T02:15")),
+                NotificationService.dueSlots(Instant.parse("2026-10-25T00:15:00Z"), BERLIN));
+        assertEquals(List.of(),
+                NotificationService.dueSlots(Instant.parse("2026-10-25T01:15:00Z"), BERLIN));
+    }
+
+    @Test
+    void everyLocalMinuteIsDueExactlyOnce() {
+        for (String day : List.of("2026-03-29", "2026-10-25")) {
+            for (String zone : List.of("Europe/Berlin", "America/New_York", "Australia/Lord_Howe", "Asia/Manila")) {
+                assertEachMinuteOnce(ZoneId.of(zone), LocalDateTime.parse(day + "T00:00"));
+            }
+        }
+        // Lord Howe moves by 30 minutes, forward in October
+        assertEachMinuteOnce(ZoneId.of("Australia/Lord_Howe"), LocalDateTime.parse("2026-10-04T00:00"));
+    }
+
+    private static void assertEachMinuteOnce(ZoneId zone, LocalDateTime dayStart) {
+        Map<LocalDateTime, Integer> sent = new HashMap<>();
+        // Walk UTC minutes well past both ends of the local day
+        Instant start = dayStart.minusDays(1).atZone(zone).toInstant();
+        for (int i = 0; i < 3 * 24 * 60; i++) {
+            for (LocalDateTime slot : NotificationService.dueSlots(start.plusSeconds(60L * i), zone)) {
+                sent.merge(slot, 1, Integer::sum);
+            }
+        }
+        for (LocalDateTime slot = dayStart; slot.isBefore(dayStart.plusDays(1)); slot = slot.plusMinutes(1)) {
+            assertEquals(1, sent.getOrDefault(slot, 0), zone + " " + slot);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package io.equitrack.service;
+
+import io.equitrack.entity.ProfileEntity;
+import io.equitrack.entity.WalletEntity;
+import io.equitrack.repository.ProfileRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many threads transferring in both directions between the same wallets (and between two users)
+ * must neither lose an update nor deadlock: the total never changes, and every wallet's cached
+ * balance still matches its ledger.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class WalletTransferConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 60;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private WalletLedgerService walletLedgerService;
+
+    @Autowired
+    private ProfileRepository profileRepository;
+
+    @Test
+    void concurrentTransfersKeepTheTotalBalance() throws Exception {
+        List<Long> walletIds = new ArrayList<>();
+        for (String owner : List.of("ana", "ben")) {
+            ProfileEntity profile = profileRepository.save(ProfileEntity.builder()
+                    .fullName(owner)
+                    .email(owner + "@transfer.test")
+                    .password("x")
+                    .isActive(true)
+                    .build());
+            for (String type : List.of("MAIN", "SAVINGS")) {
+                WalletEntity wallet = walletService.createWallet(profile.getId(), type);
+                walletService.deposit(wallet.getId(), OPENING_BALANCE);
+                walletIds.add(wallet.getId());
+            }
+        }
+        BigDecimal expectedTotal = OPENING_BALANCE.multiply(BigDecimal.valueOf(walletIds.size()));
+
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger insufficient = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(walletIds.size());
+                    int to = (from + 1 + random.nextInt(walletIds.size() - 1)) % walletIds.size();
+                    BigDecimal amount = BigDecimal.valueOf(1 + random.nextInt(150));
+                    try {
+                        walletService.transfer(walletIds.get(from), walletIds.get(to), amount);
+                        applied.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (e.getMessage() != null && e.getMessage().startsWith("Insufficient balance")) {
+                            insufficient.incrementAndGet();
+                        } else {
+                            unexpected.add(e);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);  // A deadlock would hang here
+        }
+        pool.shutdown();
+
+        assertTrue(unexpected.isEmpty(), () -> "Transfers failed: " + unexpected);
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, applied.get() + insufficient.get());
+        assertTrue(applied.get() > 0);
+
+        BigDecimal total = BigDecimal.ZERO;
+        long ledgerEntries = 0;
+        for (Long walletId : walletIds) {
+            WalletEntity wallet = walletService.getWalletById(walletId).orElseThrow();
+            assertTrue(wallet.getBalance().signum() >= 0, "wallet " + walletId + " overdrawn");
+            assertEquals(0, wallet.getBalance().compareTo(walletLedgerService.balanceAt(walletId, wallet.getLedgerSeq())),
+                    "wallet " + walletId + " cached balance differs from its ledger");
+            total = total.add(wallet.getBalance());
+            ledgerEntries += wallet.getLedgerSeq();
+        }
+        assertEquals(0, expectedTotal.compareTo(total), "total balance changed: " + total);
+        // One deposit per wallet, then an OUT and an IN entry per applied transfer
+        assertEquals(walletIds.size() + 2L * applied.get(), ledgerEntries);
+    }
+}